@@ -4,6 +4,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -20,10 +21,15 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import manyWorker.entity.Actor;
 import manyWorker.entity.ActorLogin;
+import manyWorker.security.ActorPrincipal;
 import manyWorker.security.JWTUtils;
-import manyWorker.service.ActorService;
+import manyWorker.security.LimitadorLogin;
+import manyWorker.security.RegistroRevocaciones;
+import manyWorker.security.PasswordEncoderLimitado.LoginSaturadoException;
+import manyWorker.service.TokenRefrescoService;
 
 @RestController
 @RequestMapping("/actor")
@@ -34,10 +40,16 @@ public class ActorController {
     private AuthenticationManager authenticationManager;
     
     @Autowired
-    private ActorService actorService;
+    private JWTUtils jwtUtils;
 
     @Autowired
-    private JWTUtils jwtUtils;
+    private TokenRefrescoService tokenRefrescoService;
+
+    @Autowired
+    private LimitadorLogin limitadorLogin;
+
+    @Autowired
+    private RegistroRevocaciones registroRevocaciones;
 
     @PostMapping("/login")
     @Operation(summary = "Iniciar sesión", description = "Autentica a un actor (administrador, cliente o trabajador) en el sistema")
@@ -46,8 +58,10 @@ public class ActorController {
         @ApiResponse(responseCode = "401", description = "Credenciales inválidas o usuario no encontrado"),
         @ApiResponse(responseCode = "400", description = "Datos de login inválidos"),
         @ApiResponse(responseCode = "403", description = "Usuario baneado"),
+        @ApiResponse(responseCode = "429", description = "Demasiados intentos para ese usuario o IP"),
+        @ApiResponse(responseCode = "503", description = "Demasiados inicios de sesión simultáneos"),
     })
-    public ResponseEntity<?> login(@RequestBody ActorLogin actorLogin) {
+    public ResponseEntity<?> login(@RequestBody ActorLogin actorLogin, HttpServletRequest request) {
         try {
             // Validaciones básicas
             if (actorLogin.getUsername() == null || actorLogin.getUsername().trim().isEmpty()) {
@@ -58,6 +72,14 @@ public class ActorController {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("La contraseña es obligatoria");
             }
 
+            // Límite de intentos por usuario e IP antes de llegar al BCrypt
+            long espera = limitadorLogin.intentar(actorLogin.getUsername(), request.getRemoteAddr());
+            if (espera > 0) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf((espera + 999) / 1000))
+                        .body("Demasiados intentos de inicio de sesión, inténtalo más tarde");
+            }
+
             // Autenticación con Spring Security
             Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
@@ -73,14 +95,14 @@ public class ActorController {
             String username = authentication.getName();
             String rol = authentication.getAuthorities().iterator().next().getAuthority();
 
-            // 2. BUSCAMOS EL USUARIO EN LA BD PARA OBTENER SU ID
-            // (Asumimos que ActorRepository tiene el método findByUsername)
-            Actor actor = actorService.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("Error: Usuario autenticado pero no encontrado en BD."));
+            // 2. EL ID SALE DEL MISMO ACTOR QUE CARGÓ LA AUTENTICACIÓN (sin segunda consulta)
+            ActorPrincipal actor = (ActorPrincipal) authentication.getPrincipal();
 
             // Construir respuesta JSON
             Map<String, Object> response = new HashMap<>();
             response.put("token", token);
+            response.put("refreshToken", tokenRefrescoService.emitir(actor.getId()));
+            response.put("expiresIn", jwtUtils.getDuracionAccesoSegundos());
             response.put("username", username);
             response.put("rol", rol);
             
@@ -94,12 +116,63 @@ public class ActorController {
         } catch (org.springframework.security.authentication.BadCredentialsException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Credenciales inválidas");
             
+        } catch (org.springframework.security.authentication.LockedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Usuario baneado");
+            
+        } catch (LoginSaturadoException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(e.getMessage());
+            
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error interno del servidor: " + e.getMessage());
         }
     }
 
+    @PostMapping("/refresh")
+    @Operation(summary = "Renovar token", description = "Cambia un token de refresco por un token de acceso nuevo y un token de refresco nuevo, sin volver a enviar la contraseña")
+    @ApiResponses(value = { 
+        @ApiResponse(responseCode = "200", description = "Tokens renovados"),
+        @ApiResponse(responseCode = "400", description = "Falta el token de refresco"),
+        @ApiResponse(responseCode = "401", description = "Token de refresco inválido, caducado o ya utilizado"),
+    })
+    public ResponseEntity<?> refresh(@RequestBody Map<String, String> body) {
+        String refreshToken = body.get("refreshToken");
+        if (refreshToken == null || refreshToken.isBlank()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("El token de refresco es obligatorio");
+        }
+        try {
+            return ResponseEntity.ok(tokenRefrescoService.rotar(refreshToken));
+        } catch (org.springframework.security.authentication.BadCredentialsException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/logout")
+    @Operation(summary = "Cerrar sesión", description = "Revoca el token de acceso actual y, si se envía, también el token de refresco")
+    @ApiResponses(value = { 
+        @ApiResponse(responseCode = "200", description = "Sesión cerrada"),
+        @ApiResponse(responseCode = "400", description = "La petición no lleva token de acceso"),
+        @ApiResponse(responseCode = "401", description = "No autenticado token JWT requerido"),
+    })
+    public ResponseEntity<?> logout(HttpServletRequest request, @RequestBody(required = false) Map<String, String> body) {
+        String token = jwtUtils.getToken(request);
+        if (token == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("La petición no lleva token de acceso");
+        }
+
+        registroRevocaciones.revocar(jwtUtils.getClaims(token));
+
+        String refreshToken = body == null ? null : body.get("refreshToken");
+        if (refreshToken != null && !refreshToken.isBlank()) {
+            tokenRefrescoService.revocar(refreshToken);
+        }
+
+        SecurityContextHolder.clearContext();
+        return ResponseEntity.ok("Sesión cerrada correctamente");
+    }
+
     @PostMapping("/registro")
     @Operation(summary = "Registrar nuevo usuario", description = "Registra un nuevo cliente o trabajador en el sistema")
     @ApiResponses(value = { 
@@ -0,0 +1,77 @@
+package manyWorker.controller;
+
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import manyWorker.entity.Actor;
+import manyWorker.entity.Roles;
+import manyWorker.service.ActorService;
+
+@RestController
+@Tag(name = "Baneos", description = "Controlador para banear y desbanear actores")
+public class BaneoController {
+
+    @Autowired
+    private ActorService actorService;
+
+    @PutMapping("/banear/{id}")
+    @Operation(summary = "Banear un actor", description = "Banea a un cliente o trabajador y cierra todas sus sesiones")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Actor baneado correctamente"),
+        @ApiResponse(responseCode = "400", description = "ID inválido o el actor es un administrador"),
+        @ApiResponse(responseCode = "404", description = "Actor no encontrado"),
+        @ApiResponse(responseCode = "401", description = "No autenticado token JWT requerido"),
+        @ApiResponse(responseCode = "403", description = "No autorizado, permisos insuficientes"),
+    })
+    public ResponseEntity<?> banear(@PathVariable int id) {
+        if (id <= 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("ID de actor inválido");
+        }
+
+        Optional<Actor> oActor = actorService.findById(id);
+        if (oActor.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Actor con ID " + id + " no encontrado");
+        }
+
+        Actor actor = oActor.get();
+        if (actor.getRol() == Roles.ADMINISTRADOR) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("No se puede banear a un administrador");
+        }
+
+        actorService.banear(actor);
+        return ResponseEntity.ok("Actor " + actor.getUsername() + " baneado correctamente");
+    }
+
+    @PutMapping("/desbanear/{id}")
+    @Operation(summary = "Desbanear un actor", description = "Levanta el baneo de un actor para que pueda volver a iniciar sesión")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Actor desbaneado correctamente"),
+        @ApiResponse(responseCode = "400", description = "ID inválido"),
+        @ApiResponse(responseCode = "404", description = "Actor no encontrado"),
+        @ApiResponse(responseCode = "401", description = "No autenticado token JWT requerido"),
+        @ApiResponse(responseCode = "403", description = "No autorizado, permisos insuficientes"),
+    })
+    public ResponseEntity<?> desbanear(@PathVariable int id) {
+        if (id <= 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("ID de actor inválido");
+        }
+
+        Optional<Actor> oActor = actorService.findById(id);
+        if (oActor.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Actor con ID " + id + " no encontrado");
+        }
+
+        actorService.desbanear(oActor.get());
+        return ResponseEntity.ok("Actor " + oActor.get().getUsername() + " desbaneado correctamente");
+    }
+}
@@ -0,0 +1,114 @@
+package manyWorker.controller;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import manyWorker.entity.Actor;
+import manyWorker.entity.ClaveApi;
+import manyWorker.security.ActorActual;
+import manyWorker.security.RegistroClavesApi;
+import manyWorker.service.ClaveApiService;
+
+//DTO para crear una clave de API
+class CrearClaveApiRequest {
+	 public String nombre;
+	 public boolean soloLectura;
+	 public Integer diasValidez;  // null = no caduca
+}
+
+@RestController
+@RequestMapping("/claves-api")
+@Tag(name = "Claves de API", description = "Controlador para gestionar las claves de API de las integraciones")
+public class ClaveApiController {
+
+    @Autowired
+    private ClaveApiService claveApiService;
+
+    @Autowired
+    private ActorActual actorActual;
+
+    @PostMapping
+    @Operation(summary = "Crear clave de API", description = "Crea una clave de API para el usuario autenticado. El valor de la clave solo se devuelve en esta respuesta")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "201", description = "Clave creada correctamente"),
+        @ApiResponse(responseCode = "400", description = "Datos inválidos"),
+        @ApiResponse(responseCode = "401", description = "No autenticado token JWT requerido"),
+        @ApiResponse(responseCode = "403", description = "No autorizado, permisos insuficientes"),
+    })
+    public ResponseEntity<?> crear(@RequestBody CrearClaveApiRequest request) {
+        if (autenticadoConClaveApi()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Las claves de API no pueden gestionar claves de API");
+        }
+        if (request.nombre == null || request.nombre.trim().isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("El nombre de la clave es obligatorio");
+        }
+        if (request.diasValidez != null && request.diasValidez <= 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Los días de validez deben ser positivos");
+        }
+        if (request.diasValidez != null && request.diasValidez > ClaveApiService.MAX_DIAS_VALIDEZ) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Los días de validez no pueden superar " + ClaveApiService.MAX_DIAS_VALIDEZ);
+        }
+
+        Optional<Actor> actor = actorActual.obtener();
+        if (actor.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("No autenticado");
+        }
+
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(claveApiService.crear(actor.get(), request.nombre.trim(), request.soloLectura, request.diasValidez));
+    }
+
+    @GetMapping
+    @Operation(summary = "Listar mis claves de API", description = "Devuelve las claves de API del usuario autenticado (sin su valor)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Lista de claves obtenida correctamente"),
+        @ApiResponse(responseCode = "401", description = "No autenticado token JWT requerido"),
+        @ApiResponse(responseCode = "403", description = "No autorizado, permisos insuficientes"),
+    })
+    public ResponseEntity<?> findMias() {
+        List<ClaveApi> claves = claveApiService.findByActor(actorActual.obtenerId());
+        return ResponseEntity.ok(claves);
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Revocar clave de API", description = "Revoca una clave de API del usuario autenticado; deja de funcionar inmediatamente")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Clave revocada correctamente"),
+        @ApiResponse(responseCode = "404", description = "Clave no encontrada"),
+        @ApiResponse(responseCode = "401", description = "No autenticado token JWT requerido"),
+        @ApiResponse(responseCode = "403", description = "No autorizado, permisos insuficientes"),
+    })
+    public ResponseEntity<?> revocar(@PathVariable int id) {
+        if (autenticadoConClaveApi()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Las claves de API no pueden gestionar claves de API");
+        }
+        if (!claveApiService.revocar(actorActual.obtenerId(), id)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Clave de API con ID " + id + " no encontrada");
+        }
+        return ResponseEntity.ok("Clave de API revocada correctamente");
+    }
+
+    private boolean autenticadoConClaveApi() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(a -> RegistroClavesApi.AUTORIDAD.equals(a.getAuthority()));
+    }
+}
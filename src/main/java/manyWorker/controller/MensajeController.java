@@ -1,23 +1,33 @@
 package manyWorker.controller;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import io.jsonwebtoken.Claims;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import manyWorker.entity.Actor;
+import manyWorker.entity.Broadcast;
 import manyWorker.entity.Mensaje;
+import manyWorker.entity.MensajeVista;
 import manyWorker.repository.ActorRepository;
-import manyWorker.repository.MensajeRepository;
+import manyWorker.security.ActorActual;
+import manyWorker.security.JWTAuthenticationFilter;
+import manyWorker.service.CentralEventos;
 import manyWorker.service.MensajeService;
+import manyWorker.service.Pagina;
 
 //DTO para enviar mensajes usando username
 class EnviarMensajeRequest {
@@ -33,6 +43,12 @@ class BroadcastRequest {
 	 public String cuerpo;
 }
 
+//DTO para marcar mensajes como leídos
+class MarcarLeidosRequest {
+	 public List<Integer> ids;  // ids de mensajes o broadcasts
+	 public boolean todos;      // true = toda la bandeja (se ignoran los ids)
+}
+
 @RestController
 @RequestMapping("/mensajes")
 @Tag(name = "Mensajes", description = "Controlador para la gestión de mensajes")
@@ -41,12 +57,15 @@ public class MensajeController {
     @Autowired
     private MensajeService mensajeService;
 
-    @Autowired
-    private MensajeRepository mensajeRepository;
-    
     @Autowired
     private ActorRepository actorRepository;
 
+    @Autowired
+    private ActorActual actorActual;
+
+    @Autowired
+    private CentralEventos centralEventos;
+
     @GetMapping
     @Operation(summary = "Obtener todos los mensajes", description = "Devuelve una lista de todos los mensajes del sistema")
     @ApiResponses(value = {
@@ -56,7 +75,7 @@ public class MensajeController {
         @ApiResponse(responseCode = "403", description = "No autorizado, permisos insuficientes"),
     })
     public ResponseEntity<?> findAll() {
-        List<Mensaje> mensajes = mensajeService.findAll();
+        List<MensajeVista> mensajes = mensajeService.findAll();
         if (mensajes.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NO_CONTENT).body("No hay mensajes registrados en el sistema");
         }
@@ -77,7 +96,7 @@ public class MensajeController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("ID de mensaje inválido");
         }
         
-        Optional<Mensaje> mensaje = mensajeService.findById(id);
+        Optional<MensajeVista> mensaje = mensajeService.findById(id);
         
         if (mensaje.isPresent()) {
             return ResponseEntity.ok(mensaje.get());
@@ -98,11 +117,8 @@ public class MensajeController {
     })
     public ResponseEntity<?> enviarMensaje(@RequestBody EnviarMensajeRequest request) {
         try {
-            // 1. CORRECCIÓN: Obtener el username del contexto de seguridad (siempre es seguro)
-            String usernameRemitente = SecurityContextHolder.getContext().getAuthentication().getName();
-            
-            // 2. Buscar al remitente en la base de datos
-            Optional<Actor> oRemitente = actorRepository.findByUsername(usernameRemitente);
+            // 1. Remitente: el actor autenticado (resuelto una sola vez por petición)
+            Optional<Actor> oRemitente = actorActual.obtener();
             
             if (!oRemitente.isPresent()) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Usuario remitente no encontrado");
@@ -127,8 +143,8 @@ public class MensajeController {
             }
             
             // Enviar
-            Mensaje nuevo = mensajeService.enviarMensaje(remitente.getId(), destinatario.getId(), request.asunto, request.cuerpo);
-            return ResponseEntity.status(HttpStatus.CREATED).body(nuevo);
+            Mensaje nuevo = mensajeService.enviarMensaje(remitente, destinatario, request.asunto, request.cuerpo);
+            return ResponseEntity.status(HttpStatus.CREATED).body(MensajeVista.de(nuevo));
             
         } catch (Exception e) {
             e.printStackTrace(); // Esto imprimirá el error real en la consola de Java (Eclipse/IntelliJ)
@@ -138,21 +154,24 @@ public class MensajeController {
     }
 
     @PostMapping("/broadcast")
-    @Operation(summary = "Enviar mensaje broadcast", description = "Envía un mensaje a todos los usuarios...")
+    @Operation(summary = "Enviar mensaje broadcast", description = "Envía un mensaje a todos los usuarios. Se guarda una sola vez y aparece en todas las bandejas al momento, sin reparto en segundo plano")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "201", description = "Broadcast enviado correctamente"),
+        @ApiResponse(responseCode = "400", description = "Datos del mensaje inválidos"),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor"),
+        @ApiResponse(responseCode = "401", description = "No autenticado token JWT requerido"),
+        @ApiResponse(responseCode = "403", description = "No autorizado, permisos insuficientes"),
+    })
     public ResponseEntity<?> enviarBroadcast(@RequestBody BroadcastRequest request) {
         try {
-            // 1. OBTENER EL USERNAME DEL CONTEXTO DE SEGURIDAD (ESTO ES SEGURO)
-            String username = SecurityContextHolder.getContext().getAuthentication().getName();
-            
-            // 2. BUSCAR EL ACTOR REAL EN LA BASE DE DATOS
-            // (Necesitas tener actorRepository inyectado, como ya lo tienes en tu código)
-            Optional<manyWorker.entity.Actor> oRemitente = actorRepository.findByUsername(username);
+            // 1 y 2. OBTENER EL ACTOR AUTENTICADO (una sola consulta por petición)
+            Optional<Actor> oRemitente = actorActual.obtener();
             
             if (!oRemitente.isPresent()) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Usuario no encontrado en la base de datos");
             }
 
-            manyWorker.entity.Actor remitente = oRemitente.get();
+            Actor remitente = oRemitente.get();
             
             // 3. VERIFICAR QUE SEA ADMINISTRADOR
             // Asegúrate de que tu Enum Rol tenga el valor ADMINISTRADOR
@@ -168,10 +187,10 @@ public class MensajeController {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("El cuerpo del mensaje es obligatorio");
             }
             
-            // 5. ENVIAR (Llama a tu servicio)
-            List<Mensaje> enviados = mensajeService.enviarBroadcast(remitente.getId(), request.asunto, request.cuerpo);
+            // 5. ENVIAR: se guarda una sola vez; las bandejas lo incorporan al leerse
+            Broadcast broadcast = mensajeService.enviarBroadcast(remitente, request.asunto, request.cuerpo);
             
-            return ResponseEntity.status(HttpStatus.CREATED).body(enviados);
+            return ResponseEntity.status(HttpStatus.CREATED).body(MensajeVista.de(broadcast));
             
         } catch (Exception e) {
             e.printStackTrace(); // Verás el error real en la consola de Java
@@ -180,6 +199,45 @@ public class MensajeController {
         }
     }
 
+    @GetMapping("/broadcast/{id}")
+    @Operation(summary = "Estado de un broadcast", description = "Devuelve cuántos actores tienen el broadcast en su bandeja")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Estado obtenido correctamente"),
+        @ApiResponse(responseCode = "404", description = "Broadcast no encontrado"),
+        @ApiResponse(responseCode = "400", description = "ID inválido"),
+        @ApiResponse(responseCode = "401", description = "No autenticado token JWT requerido"),
+        @ApiResponse(responseCode = "403", description = "No autorizado, permisos insuficientes"),
+    })
+    public ResponseEntity<?> findEstadoBroadcast(@PathVariable int id) {
+        if (id <= 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("ID de broadcast inválido");
+        }
+        Optional<Map<String, Object>> estado = mensajeService.findEstadoBroadcast(id);
+        if (estado.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Broadcast con ID " + id + " no encontrado");
+        }
+        return ResponseEntity.ok(estado.get());
+    }
+
+    @DeleteMapping("/broadcast/{id}")
+    @Operation(summary = "Retirar un broadcast", description = "Retira un broadcast de las bandejas de todos los destinatarios")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Broadcast retirado correctamente"),
+        @ApiResponse(responseCode = "404", description = "Broadcast no encontrado"),
+        @ApiResponse(responseCode = "400", description = "ID inválido"),
+        @ApiResponse(responseCode = "401", description = "No autenticado token JWT requerido"),
+        @ApiResponse(responseCode = "403", description = "No autorizado, permisos insuficientes"),
+    })
+    public ResponseEntity<?> retirarBroadcast(@PathVariable int id) {
+        if (id <= 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("ID de broadcast inválido");
+        }
+        if (!mensajeService.retirarBroadcast(id)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Broadcast con ID " + id + " no encontrado");
+        }
+        return ResponseEntity.ok("Broadcast retirado correctamente");
+    }
+
     @DeleteMapping("/{id}")
     @Operation(summary = "Eliminar un mensaje", description = "Elimina un mensaje existente del sistema")
     @ApiResponses(value = {
@@ -209,45 +267,210 @@ public class MensajeController {
         }
     }
 
+    @GetMapping("/buscar")
+    @Operation(summary = "Buscar mensajes", description = "Busca por texto (asunto y cuerpo, con la morfología del español) en los mensajes del usuario autenticado y en los broadcasts que recibe; los administradores buscan en todos. Resultados de más a menos relevantes, por páginas: para la siguiente se pasa como cursor el valor 'siguiente' de la respuesta")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Página de resultados obtenida correctamente"),
+        @ApiResponse(responseCode = "400", description = "Texto de búsqueda vacío o demasiado largo, o cursor inválido"),
+        @ApiResponse(responseCode = "401", description = "No autenticado token JWT requerido"),
+        @ApiResponse(responseCode = "403", description = "No autorizado, permisos insuficientes"),
+    })
+    public ResponseEntity<?> buscar(@RequestParam String q, @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite) {
+        if (q.trim().isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("El texto de búsqueda es obligatorio");
+        }
+        if (q.length() > 200) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("El texto de búsqueda no puede superar los 200 caracteres");
+        }
+        Optional<Actor> actor = actorActual.obtener();
+        if (actor.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("No autenticado");
+        }
+        try {
+            return ResponseEntity.ok(respuestaPagina(mensajeService.buscar(actor.get(), q.trim(), cursor, limite)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/conversaciones")
+    @Operation(summary = "Listar conversaciones", description = "Devuelve por páginas las conversaciones del usuario autenticado, una por interlocutor, con su último mensaje y cuántos quedan por leer, de la más reciente a la más antigua. Para la página siguiente se pasa como cursor el valor 'siguiente' de la respuesta")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Página de conversaciones obtenida correctamente"),
+        @ApiResponse(responseCode = "400", description = "Cursor inválido"),
+        @ApiResponse(responseCode = "401", description = "No autenticado token JWT requerido"),
+        @ApiResponse(responseCode = "403", description = "No autorizado, permisos insuficientes"),
+    })
+    public ResponseEntity<?> findConversaciones(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite) {
+        try {
+            Pagina<Map<String, Object>> pagina = mensajeService.findConversaciones(actorActual.obtenerId(), cursor, limite);
+            Map<String, Object> respuesta = new LinkedHashMap<>();
+            respuesta.put("conversaciones", pagina.elementos());
+            respuesta.put("siguiente", pagina.siguiente());
+            return ResponseEntity.ok(respuesta);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/conversaciones/{interlocutorId}")
+    @Operation(summary = "Ver una conversación", description = "Devuelve por páginas los mensajes entre el usuario autenticado y otro actor, en los dos sentidos, del más reciente al más antiguo. Para la página siguiente se pasa como cursor el valor 'siguiente' de la respuesta")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Página de mensajes obtenida correctamente"),
+        @ApiResponse(responseCode = "400", description = "ID de interlocutor o cursor inválido"),
+        @ApiResponse(responseCode = "401", description = "No autenticado token JWT requerido"),
+        @ApiResponse(responseCode = "403", description = "No autorizado, permisos insuficientes"),
+    })
+    public ResponseEntity<?> findConversacion(@PathVariable int interlocutorId,
+            @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer limite) {
+        if (interlocutorId <= 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("ID de interlocutor inválido");
+        }
+        try {
+            return ResponseEntity.ok(respuestaPagina(
+                    mensajeService.findConversacion(actorActual.obtenerId(), interlocutorId, cursor, limite)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/no-leidos")
+    @Operation(summary = "Contar mensajes sin leer", description = "Devuelve cuántos mensajes y broadcasts sin leer tiene el usuario autenticado")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Contador obtenido correctamente"),
+        @ApiResponse(responseCode = "401", description = "No autenticado token JWT requerido"),
+        @ApiResponse(responseCode = "403", description = "No autorizado, permisos insuficientes"),
+    })
+    public ResponseEntity<?> contarNoLeidos() {
+        Optional<Actor> actor = actorActual.obtener();
+        if (actor.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("No autenticado");
+        }
+        return ResponseEntity.ok(mensajeService.contarNoLeidos(actor.get()));
+    }
+
+    @PutMapping("/{id}/leido")
+    @Operation(summary = "Marcar mensaje como leído", description = "Marca como leído un mensaje recibido por el usuario autenticado. En un broadcast marca también los broadcasts anteriores")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Mensaje marcado como leído"),
+        @ApiResponse(responseCode = "404", description = "Mensaje no encontrado"),
+        @ApiResponse(responseCode = "400", description = "ID inválido"),
+        @ApiResponse(responseCode = "401", description = "No autenticado token JWT requerido"),
+        @ApiResponse(responseCode = "403", description = "No autorizado, permisos insuficientes"),
+    })
+    public ResponseEntity<?> marcarLeido(@PathVariable int id) {
+        if (id <= 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("ID de mensaje inválido");
+        }
+        Optional<Actor> actor = actorActual.obtener();
+        if (actor.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("No autenticado");
+        }
+        if (!mensajeService.marcarLeido(actor.get(), id)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Mensaje con ID " + id + " no encontrado");
+        }
+        return ResponseEntity.ok(mensajeService.contarNoLeidos(actor.get()));
+    }
+
+    @PutMapping("/leidos")
+    @Operation(summary = "Marcar mensajes como leídos", description = "Marca como leídos varios mensajes del usuario autenticado (ids) o toda su bandeja (todos = true). Devuelve el contador actualizado")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Mensajes marcados como leídos"),
+        @ApiResponse(responseCode = "400", description = "Lista de ids vacía o demasiado larga"),
+        @ApiResponse(responseCode = "401", description = "No autenticado token JWT requerido"),
+        @ApiResponse(responseCode = "403", description = "No autorizado, permisos insuficientes"),
+    })
+    public ResponseEntity<?> marcarLeidos(@RequestBody MarcarLeidosRequest request) {
+        if (!request.todos && (request.ids == null || request.ids.isEmpty())) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Indica los ids de los mensajes o todos = true");
+        }
+        if (!request.todos && request.ids.size() > Pagina.LIMITE_MAXIMO) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("No se pueden marcar más de " + Pagina.LIMITE_MAXIMO + " mensajes a la vez");
+        }
+        Optional<Actor> actor = actorActual.obtener();
+        if (actor.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("No autenticado");
+        }
+        if (request.todos) {
+            mensajeService.marcarTodosLeidos(actor.get());
+        } else {
+            mensajeService.marcarLeidos(actor.get(), request.ids);
+        }
+        return ResponseEntity.ok(mensajeService.contarNoLeidos(actor.get()));
+    }
+
+    @GetMapping(value = "/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Eventos en tiempo real", description = "Abre un stream Server-Sent Events con los mensajes nuevos del usuario autenticado (evento 'mensaje'). Sustituye al sondeo de la bandeja; al reconectar conviene volver a pedir la primera página")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Stream abierto"),
+        @ApiResponse(responseCode = "401", description = "No autenticado token JWT requerido"),
+        @ApiResponse(responseCode = "403", description = "No autorizado, permisos insuficientes"),
+    })
+    public SseEmitter eventos(HttpServletRequest request) {
+        // El stream no dura más que el token con el que se abre (ni que el logout de ese token)
+        Claims claims = (Claims) request.getAttribute(JWTAuthenticationFilter.ATRIBUTO_CLAIMS);
+        return centralEventos.conectar(actorActual.obtenerId(), claims == null ? null : claims.getId(),
+                claims == null ? null : claims.getExpiration());
+    }
+
     @GetMapping("/remitente/{remitenteId}")
-    @Operation(summary = "Buscar mensajes por remitente", description = "Busca todos los mensajes enviados por un remitente específico")
+    @Operation(summary = "Buscar mensajes por remitente", description = "Devuelve por páginas los mensajes enviados por un remitente, del más reciente al más antiguo. Para la página siguiente se pasa como cursor el valor 'siguiente' de la respuesta")
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "Lista de mensajes obtenida correctamente"),
+        @ApiResponse(responseCode = "200", description = "Página de mensajes obtenida correctamente"),
         @ApiResponse(responseCode = "204", description = "El remitente no tiene mensajes enviados"),
-        @ApiResponse(responseCode = "400", description = "ID de remitente inválido"),
+        @ApiResponse(responseCode = "400", description = "ID de remitente o cursor inválido"),
         @ApiResponse(responseCode = "401", description = "No autenticado token JWT requerido"),
         @ApiResponse(responseCode = "403", description = "No autorizado, permisos insuficientes"),
     })
-    public ResponseEntity<?> findByRemitenteId(@PathVariable int remitenteId) {
+    public ResponseEntity<?> findByRemitenteId(@PathVariable int remitenteId,
+            @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer limite) {
         if (remitenteId <= 0) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("ID de remitente inválido");
         }
         
-        List<Mensaje> mensajes = mensajeRepository.findByRemitenteId(remitenteId);
-        if (mensajes.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NO_CONTENT).body("El remitente con ID " + remitenteId + " no tiene mensajes enviados");
+        try {
+            Pagina<MensajeVista> pagina = mensajeService.findEnviados(remitenteId, cursor, limite);
+            if (pagina.elementos().isEmpty() && cursor == null) {
+                return ResponseEntity.status(HttpStatus.NO_CONTENT).body("El remitente con ID " + remitenteId + " no tiene mensajes enviados");
+            }
+            return ResponseEntity.ok(respuestaPagina(pagina));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         }
-        return ResponseEntity.ok(mensajes);
     }
 
     @GetMapping("/destinatario/{destinatarioId}")
-    @Operation(summary = "Buscar mensajes por destinatario", description = "Busca todos los mensajes recibidos por un destinatario específico")
+    @Operation(summary = "Buscar mensajes por destinatario", description = "Devuelve por páginas los mensajes recibidos por un destinatario, del más reciente al más antiguo. Para la página siguiente se pasa como cursor el valor 'siguiente' de la respuesta")
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "Lista de mensajes obtenida correctamente"),
+        @ApiResponse(responseCode = "200", description = "Página de mensajes obtenida correctamente"),
         @ApiResponse(responseCode = "204", description = "El destinatario no tiene mensajes recibidos"),
-        @ApiResponse(responseCode = "400", description = "ID de destinatario inválido"),
+        @ApiResponse(responseCode = "400", description = "ID de destinatario o cursor inválido"),
         @ApiResponse(responseCode = "401", description = "No autenticado token JWT requerido"),
         @ApiResponse(responseCode = "403", description = "No autorizado, permisos insuficientes"),
     })
-    public ResponseEntity<?> findByDestinatarioId(@PathVariable int destinatarioId) {
+    public ResponseEntity<?> findByDestinatarioId(@PathVariable int destinatarioId,
+            @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer limite) {
         if (destinatarioId <= 0) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("ID de destinatario inválido");
         }
         
-        List<Mensaje> mensajes = mensajeRepository.findByDestinatarioId(destinatarioId);
-        if (mensajes.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NO_CONTENT).body("El destinatario con ID " + destinatarioId + " no tiene mensajes recibidos");
+        try {
+            Pagina<MensajeVista> pagina = mensajeService.findRecibidos(destinatarioId, cursor, limite);
+            if (pagina.elementos().isEmpty() && cursor == null) {
+                return ResponseEntity.status(HttpStatus.NO_CONTENT).body("El destinatario con ID " + destinatarioId + " no tiene mensajes recibidos");
+            }
+            return ResponseEntity.ok(respuestaPagina(pagina));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         }
-        return ResponseEntity.ok(mensajes);
     }
-}
\ No newline at end of file
+
+    private static Map<String, Object> respuestaPagina(Pagina<?> pagina) {
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("mensajes", pagina.elementos());
+        respuesta.put("siguiente", pagina.siguiente());
+        return respuesta;
+    }
+}
@@ -0,0 +1,103 @@
+package manyWorker.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import manyWorker.security.CachePrincipales;
+import manyWorker.security.JWTUtils;
+import manyWorker.security.LimitadorLogin;
+import manyWorker.security.PasswordEncoderLimitado;
+import manyWorker.security.RegistroBaneos;
+import manyWorker.security.RegistroClavesApi;
+import manyWorker.security.RegistroRevocaciones;
+import manyWorker.security.RegistroVersionesSeguridad;
+import manyWorker.security.TablaAutorizacion;
+import manyWorker.service.ArchivoMensajes;
+import manyWorker.service.BusEventos;
+import manyWorker.service.CentralEventos;
+import manyWorker.service.NotificacionesSolicitud;
+import manyWorker.service.TokenRefrescoService;
+
+@RestController
+@RequestMapping("/admin/metricas")
+@Tag(name = "Métricas", description = "Controlador para consultar métricas internas de rendimiento")
+public class MetricasController {
+
+    @Autowired
+    private CachePrincipales cachePrincipales;
+
+    @Autowired
+    private JWTUtils jwtUtils;
+
+    @Autowired
+    private RegistroVersionesSeguridad registroVersiones;
+
+    @Autowired
+    private PasswordEncoderLimitado passwordEncoder;
+
+    @Autowired
+    private TokenRefrescoService tokenRefrescoService;
+
+    @Autowired
+    private LimitadorLogin limitadorLogin;
+
+    @Autowired
+    private TablaAutorizacion tablaAutorizacion;
+
+    @Autowired
+    private RegistroBaneos registroBaneos;
+
+    @Autowired
+    private RegistroRevocaciones registroRevocaciones;
+
+    @Autowired
+    private RegistroClavesApi registroClavesApi;
+
+    @Autowired
+    private CentralEventos centralEventos;
+
+    @Autowired
+    private BusEventos busEventos;
+
+    @Autowired
+    private ArchivoMensajes archivoMensajes;
+
+    @Autowired
+    private NotificacionesSolicitud notificacionesSolicitud;
+
+    @GetMapping
+    @Operation(summary = "Obtener métricas", description = "Devuelve los contadores internos de caches y componentes de seguridad")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Métricas obtenidas correctamente"),
+        @ApiResponse(responseCode = "401", description = "No autenticado token JWT requerido"),
+        @ApiResponse(responseCode = "403", description = "No autorizado, permisos insuficientes"),
+    })
+    public ResponseEntity<?> obtenerMetricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("cachePrincipales", cachePrincipales.getMetricas());
+        metricas.put("cacheTokens", jwtUtils.getMetricas());
+        metricas.put("versionesSeguridad", registroVersiones.getMetricas());
+        metricas.put("bcrypt", passwordEncoder.getMetricas());
+        metricas.put("cacheTokensRefresco", tokenRefrescoService.getMetricas());
+        metricas.put("limitadorLogin", limitadorLogin.getMetricas());
+        metricas.put("tablaAutorizacion", tablaAutorizacion.getMetricas());
+        metricas.put("baneos", registroBaneos.getMetricas());
+        metricas.put("tokensRevocados", registroRevocaciones.getMetricas());
+        metricas.put("clavesApi", registroClavesApi.getMetricas());
+        metricas.put("eventosTiempoReal", centralEventos.getMetricas());
+        metricas.put("busEventos", busEventos.getMetricas());
+        metricas.put("archivoMensajes", archivoMensajes.getMetricas());
+        metricas.put("notificacionesSolicitud", notificacionesSolicitud.getMetricas());
+        return ResponseEntity.ok(metricas);
+    }
+}
@@ -122,7 +122,7 @@ public class SolicitudController {
             }
             
             solicitudService.rechazar(id);
-            return ResponseEntity.ok("Solicitud rechazada correctamente. Se han enviado notificaciones al cliente y trabajador.");
+            return ResponseEntity.ok("Solicitud rechazada correctamente. Se notificará al cliente y al trabajador.");
             
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
@@ -182,7 +182,7 @@ public class SolicitudController {
             }
             
             solicitudService.aceptar(id);
-            return ResponseEntity.ok("Solicitud aceptada correctamente. Se han enviado notificaciones al cliente y trabajador.");
+            return ResponseEntity.ok("Solicitud aceptada correctamente. Se notificará al cliente y al trabajador.");
             
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
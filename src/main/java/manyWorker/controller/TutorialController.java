@@ -6,7 +6,6 @@ import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -16,8 +15,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import manyWorker.entity.Actor;
 import manyWorker.entity.Trabajador;
 import manyWorker.entity.Tutorial;
-import manyWorker.service.ActorService;
-import manyWorker.service.TrabajadorService;
+import manyWorker.security.ActorActual;
 import manyWorker.service.TutorialService;
 
 @RestController
@@ -29,7 +27,7 @@ public class TutorialController {
     private TutorialService tutorialService;
     
     @Autowired
-    private TrabajadorService trabajadorService;
+    private ActorActual actorActual;
     
     @GetMapping
     @Operation(summary = "Obtener todos los tutoriales", description = "Devuelve una lista de todos los tutoriales del sistema")
@@ -73,15 +71,10 @@ public class TutorialController {
     @PostMapping
     public ResponseEntity<?> save(@RequestBody Tutorial tutorial) {
         try {
-            // 1. Obtener el username del token
-            String username = SecurityContextHolder.getContext().getAuthentication().getName();
-            
-            // 2. Buscar al trabajador (autor)
-            // Usamos el repositorio de trabajador directamente para asegurar que existe
-            Trabajador autor = trabajadorService.findByUsername(username)
-                .orElse(null);
+            // 1 y 2. Obtener el actor autenticado y comprobar que es un trabajador (una sola consulta)
+            Actor actor = actorActual.obtener().orElse(null);
 
-            if (autor == null) {
+            if (!(actor instanceof Trabajador autor)) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
                     .body("Solo los usuarios con perfil de TRABAJADOR pueden crear tutoriales.");
             }
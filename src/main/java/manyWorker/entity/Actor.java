@@ -1,14 +1,19 @@
 package manyWorker.entity;
 
+import java.util.Date;
 import java.util.List;
 
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.validator.constraints.URL;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Inheritance;
 import jakarta.persistence.InheritanceType;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.PrePersist;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 
@@ -52,6 +57,22 @@ public class Actor extends DomainEntity{
 	@Column(nullable = false)
 	private String authority;
 	
+	// Se incrementa al banear o cambiar credenciales para invalidar los tokens emitidos antes
+	@JsonIgnore
+	@ColumnDefault("0")
+	private int versionSeguridad;
+	
+	// Los broadcasts anteriores al alta no aparecen en su bandeja. Null en actores creados antes de
+	// existir este campo: ven todos.
+	private Date fechaAlta;
+	
+	@PrePersist
+	public void asignarFechaAlta() {
+		if (fechaAlta == null) {
+			fechaAlta = new Date();
+		}
+	}
+	
 	//Constructor
 	public Actor(@NotBlank String nombre, @NotBlank String apellido, String apellido2, @URL String foto,
 			@Pattern(regexp = "^[\\w._%+-]+@[\\w.-]+\\.[a-zA-Z]{2,}$") String correo, @Pattern(regexp = "^[6-9][0-9]{8}$") String telefono,
@@ -177,4 +198,20 @@ public class Actor extends DomainEntity{
 	public void setAuthority(String authority) {
 		this.authority = authority;
 	}
-}
\ No newline at end of file
+
+	public int getVersionSeguridad() {
+		return versionSeguridad;
+	}
+
+	public void setVersionSeguridad(int versionSeguridad) {
+		this.versionSeguridad = versionSeguridad;
+	}
+
+	public Date getFechaAlta() {
+		return fechaAlta;
+	}
+
+	public void setFechaAlta(Date fechaAlta) {
+		this.fechaAlta = fechaAlta;
+	}
+}
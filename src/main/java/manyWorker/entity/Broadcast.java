@@ -0,0 +1,78 @@
+package manyWorker.entity;
+
+import java.util.Date;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+// Mensaje para todos los actores, guardado una sola vez. No hay una copia por destinatario:
+// cada bandeja de entrada lo incorpora al leerse (ver MensajeService.findRecibidos),
+// así que retirarlo es borrar esta fila.
+@Entity
+@Table(indexes = {
+    @Index(name = "idx_broadcast_fecha", columnList = "fechaEnvio, id"),
+    @Index(name = "idx_broadcast_remitente_fecha", columnList = "remitente_id, fechaEnvio, id")
+})
+public class Broadcast extends DomainEntity {
+
+    @NotNull
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Actor remitente;
+
+    private Date fechaEnvio;
+
+    @NotBlank
+    private String asunto;
+
+    @NotBlank
+    private String cuerpo;
+
+    public Broadcast(@NotNull Actor remitente, Date fechaEnvio, @NotBlank String asunto, @NotBlank String cuerpo) {
+        super();
+        this.remitente = remitente;
+        this.fechaEnvio = fechaEnvio;
+        this.asunto = asunto;
+        this.cuerpo = cuerpo;
+    }
+
+    public Broadcast() {
+        super();
+    }
+
+    public Actor getRemitente() {
+        return remitente;
+    }
+
+    public void setRemitente(Actor remitente) {
+        this.remitente = remitente;
+    }
+
+    public Date getFechaEnvio() {
+        return fechaEnvio;
+    }
+
+    public void setFechaEnvio(Date fechaEnvio) {
+        this.fechaEnvio = fechaEnvio;
+    }
+
+    public String getAsunto() {
+        return asunto;
+    }
+
+    public void setAsunto(String asunto) {
+        this.asunto = asunto;
+    }
+
+    public String getCuerpo() {
+        return cuerpo;
+    }
+
+    public void setCuerpo(String cuerpo) {
+        this.cuerpo = cuerpo;
+    }
+}
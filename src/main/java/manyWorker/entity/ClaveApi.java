@@ -0,0 +1,128 @@
+package manyWorker.entity;
+
+import java.util.Date;
+
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ManyToOne;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+// Clave de API de larga duración para integraciones. Como con los tokens de refresco,
+// solo se guarda su SHA-256; el valor en claro se muestra una única vez al crearla.
+@Entity
+public class ClaveApi extends DomainEntity {
+
+	@NotBlank
+	private String nombre;
+
+	// Primeros caracteres de la clave, para que el usuario pueda reconocerla en el listado
+	private String prefijo;
+
+	@JsonIgnore
+	@NotNull
+	@Column(unique = true, length = 64)
+	private String hash;
+
+	@JsonIgnore
+	@NotNull
+	@ManyToOne(fetch = FetchType.LAZY)
+	@OnDelete(action = OnDeleteAction.CASCADE)
+	private Actor actor;
+
+	// Una clave de solo lectura únicamente puede hacer peticiones GET
+	private boolean soloLectura;
+
+	private Date fechaCreacion;
+
+	// Opcional: sin fecha la clave no caduca
+	private Date expiracion;
+
+	private boolean revocada;
+
+	public ClaveApi(String nombre, String prefijo, String hash, Actor actor, boolean soloLectura, Date fechaCreacion,
+			Date expiracion) {
+		super();
+		this.nombre = nombre;
+		this.prefijo = prefijo;
+		this.hash = hash;
+		this.actor = actor;
+		this.soloLectura = soloLectura;
+		this.fechaCreacion = fechaCreacion;
+		this.expiracion = expiracion;
+	}
+
+	public ClaveApi() {
+		super();
+	}
+
+	public String getNombre() {
+		return nombre;
+	}
+
+	public void setNombre(String nombre) {
+		this.nombre = nombre;
+	}
+
+	public String getPrefijo() {
+		return prefijo;
+	}
+
+	public void setPrefijo(String prefijo) {
+		this.prefijo = prefijo;
+	}
+
+	public String getHash() {
+		return hash;
+	}
+
+	public void setHash(String hash) {
+		this.hash = hash;
+	}
+
+	public Actor getActor() {
+		return actor;
+	}
+
+	public void setActor(Actor actor) {
+		this.actor = actor;
+	}
+
+	public boolean isSoloLectura() {
+		return soloLectura;
+	}
+
+	public void setSoloLectura(boolean soloLectura) {
+		this.soloLectura = soloLectura;
+	}
+
+	public Date getFechaCreacion() {
+		return fechaCreacion;
+	}
+
+	public void setFechaCreacion(Date fechaCreacion) {
+		this.fechaCreacion = fechaCreacion;
+	}
+
+	public Date getExpiracion() {
+		return expiracion;
+	}
+
+	public void setExpiracion(Date expiracion) {
+		this.expiracion = expiracion;
+	}
+
+	public boolean isRevocada() {
+		return revocada;
+	}
+
+	public void setRevocada(boolean revocada) {
+		this.revocada = revocada;
+	}
+}
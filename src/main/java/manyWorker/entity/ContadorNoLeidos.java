@@ -0,0 +1,61 @@
+package manyWorker.entity;
+
+import java.util.Date;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+// Mensajes sin leer de un actor, mantenido en la misma transacción que escribe o marca los mensajes,
+// para que el contador de la app sea una lectura por clave y no un recorrido de la bandeja.
+// La clave es el id del actor (no usa la secuencia de DomainEntity: se crea con un upsert).
+// Los broadcasts no se cuentan aquí: se leen hasta "broadcastsLeidosHasta" (ver MensajeService).
+// "archivadoHasta" es la fecha del mensaje archivado más reciente del actor (enviado o recibido), que
+// mantiene ArchivoMensajes: null si no tiene nada archivado y las bandejas no tienen que mirar el archivo.
+@Entity
+public class ContadorNoLeidos {
+
+	@Id
+	private int actorId;
+
+	private int noLeidos;
+
+	private Date broadcastsLeidosHasta;
+
+	private Date archivadoHasta;
+
+	public ContadorNoLeidos() {
+		super();
+	}
+
+	public int getActorId() {
+		return actorId;
+	}
+
+	public void setActorId(int actorId) {
+		this.actorId = actorId;
+	}
+
+	public int getNoLeidos() {
+		return noLeidos;
+	}
+
+	public void setNoLeidos(int noLeidos) {
+		this.noLeidos = noLeidos;
+	}
+
+	public Date getBroadcastsLeidosHasta() {
+		return broadcastsLeidosHasta;
+	}
+
+	public void setBroadcastsLeidosHasta(Date broadcastsLeidosHasta) {
+		this.broadcastsLeidosHasta = broadcastsLeidosHasta;
+	}
+
+	public Date getArchivadoHasta() {
+		return archivadoHasta;
+	}
+
+	public void setArchivadoHasta(Date archivadoHasta) {
+		this.archivadoHasta = archivadoHasta;
+	}
+}
@@ -0,0 +1,103 @@
+package manyWorker.entity;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+// Cambio de estado de una solicitud pendiente de notificar (outbox). SolicitudService lo guarda en la
+// misma transacción que la solicitud y NotificacionesSolicitud lo convierte después en los mensajes al
+// cliente y al trabajador. Solo guarda el id y el tipo: los textos se montan al despachar.
+// "siguienteIntento" sirve a la vez de reserva (mientras un nodo lo despacha) y de espera entre reintentos;
+// los que agotan los reintentos se quedan con "fallido" a true para revisarlos a mano.
+@Entity
+@Table(indexes = {
+	@Index(name = "idx_evento_solicitud_pendiente", columnList = "fallido, siguienteIntento, id")
+})
+public class EventoSolicitud extends DomainEntity {
+
+	private int solicitudId;
+
+	private String tipo;
+
+	private Date fechaCreacion;
+
+	private Date siguienteIntento;
+
+	private int intentos;
+
+	private boolean fallido;
+
+	@Column(length = 1000)
+	private String error;
+
+	public EventoSolicitud() {
+		super();
+	}
+
+	public EventoSolicitud(int solicitudId, String tipo) {
+		super();
+		this.solicitudId = solicitudId;
+		this.tipo = tipo;
+		this.fechaCreacion = new Date();
+		this.siguienteIntento = this.fechaCreacion;
+	}
+
+	public int getSolicitudId() {
+		return solicitudId;
+	}
+
+	public void setSolicitudId(int solicitudId) {
+		this.solicitudId = solicitudId;
+	}
+
+	public String getTipo() {
+		return tipo;
+	}
+
+	public void setTipo(String tipo) {
+		this.tipo = tipo;
+	}
+
+	public Date getFechaCreacion() {
+		return fechaCreacion;
+	}
+
+	public void setFechaCreacion(Date fechaCreacion) {
+		this.fechaCreacion = fechaCreacion;
+	}
+
+	public Date getSiguienteIntento() {
+		return siguienteIntento;
+	}
+
+	public void setSiguienteIntento(Date siguienteIntento) {
+		this.siguienteIntento = siguienteIntento;
+	}
+
+	public int getIntentos() {
+		return intentos;
+	}
+
+	public void setIntentos(int intentos) {
+		this.intentos = intentos;
+	}
+
+	public boolean isFallido() {
+		return fallido;
+	}
+
+	public void setFallido(boolean fallido) {
+		this.fallido = fallido;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public void setError(String error) {
+		this.error = error;
+	}
+}
@@ -2,26 +2,46 @@ package manyWorker.entity;
 
 import java.util.Date;
 
+import org.hibernate.annotations.PartitionKey;
+
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Inheritance;
 import jakarta.persistence.InheritanceType;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
 @Entity
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
+// Tabla particionada por destinatario (particiones-postgres.sql). Los índices de las bandejas y
+// conversaciones están en esquema-postgres.sql: Hibernate no ve los de una tabla particionada.
+// Las consultas llevan el destinatario siempre que se conoce, para leer solo sus particiones; las únicas
+// que miran todas son las que solo tienen el id (ver un mensaje o borrarlo) y la bandeja de salida.
 public class Mensaje extends DomainEntity {
 
+    // Perezosos: las bandejas leen MensajeVista y para los permisos basta el id
     @NotNull
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Actor remitente;
     
     @NotNull
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Actor destinatario;
+
+    // La tabla está particionada por destinatario (particiones-postgres.sql): con @PartitionKey Hibernate
+    // lo añade al WHERE de sus UPDATE y DELETE, que así van a una sola partición
+    @PartitionKey
+    @Column(name = "destinatario_id", insertable = false, updatable = false)
+    private int destinatarioId;
     
     private Date fechaEnvio;
+
+    // null = sin leer. Los mensajes anteriores a esta columna se dieron por leídos una sola vez
+    // (esquema-postgres.sql) para que cuadren con ContadorNoLeidos, que empezó a contar desde cero.
+    private Date fechaLectura;
     
     @NotBlank
     private String asunto;
@@ -29,6 +49,10 @@ public class Mensaje extends DomainEntity {
     @NotBlank
     private String cuerpo;
 
+    // Clave de la conversación entre remitente y destinatario, igual en los dos sentidos (ver claveConversacion).
+    // Nullable solo por las filas anteriores a la columna, que rellena esquema-postgres.sql al arrancar.
+    private Long conversacion;
+
     public Mensaje(@NotNull Actor remitente, @NotNull Actor destinatario, Date fechaEnvio, 
                    @NotBlank String asunto, @NotBlank String cuerpo) {
         super();
@@ -43,6 +67,17 @@ public class Mensaje extends DomainEntity {
         super();
     }
 
+    // Ids menor y mayor en los 32 bits altos y bajos: un solo valor indexable para "A con B" y "B con A"
+    public static long claveConversacion(int actorA, int actorB) {
+        return ((long) Math.min(actorA, actorB) << 32) | Math.max(actorA, actorB);
+    }
+
+    @PrePersist
+    public void asignarConversacion() {
+        destinatarioId = destinatario.getId();
+        conversacion = claveConversacion(remitente.getId(), destinatario.getId());
+    }
+
     public Actor getRemitente() {
         return remitente;
     }
@@ -57,6 +92,7 @@ public class Mensaje extends DomainEntity {
 
     public void setDestinatario(Actor destinatario) {
         this.destinatario = destinatario;
+        this.destinatarioId = destinatario == null ? 0 : destinatario.getId();
     }
 
     public Date getFechaEnvio() {
@@ -67,6 +103,14 @@ public class Mensaje extends DomainEntity {
         this.fechaEnvio = fechaEnvio;
     }
 
+    public Date getFechaLectura() {
+        return fechaLectura;
+    }
+
+    public void setFechaLectura(Date fechaLectura) {
+        this.fechaLectura = fechaLectura;
+    }
+
     public String getAsunto() {
         return asunto;
     }
@@ -82,4 +126,12 @@ public class Mensaje extends DomainEntity {
     public void setCuerpo(String cuerpo) {
         this.cuerpo = cuerpo;
     }
-}
\ No newline at end of file
+
+    public Long getConversacion() {
+        return conversacion;
+    }
+
+    public void setConversacion(Long conversacion) {
+        this.conversacion = conversacion;
+    }
+}
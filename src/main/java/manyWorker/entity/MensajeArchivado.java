@@ -0,0 +1,78 @@
+package manyWorker.entity;
+
+import java.util.Date;
+
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Subselect;
+import org.hibernate.annotations.Synchronize;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.ManyToOne;
+
+// Mensaje antiguo movido por ArchivoMensajes a mensaje_archivado, tabla particionada por mes que crea
+// esquema-postgres.sql. Se mapea con @Subselect (solo lectura) para que ddl-auto=update no la cree
+// como tabla normal; las consultas la leen como un mensaje más y PostgreSQL descarta por fecha los
+// meses que no tocan. Solo se archivan mensajes leídos, así que no cuentan en ningún contador.
+@Entity
+@Immutable
+@Subselect("SELECT * FROM mensaje_archivado")
+@Synchronize("mensaje_archivado")
+public class MensajeArchivado {
+
+	@Id
+	private int id;
+
+	@ManyToOne(fetch = FetchType.LAZY)
+	private Actor remitente;
+
+	@ManyToOne(fetch = FetchType.LAZY)
+	private Actor destinatario;
+
+	private Date fechaEnvio;
+
+	private Date fechaLectura;
+
+	private String asunto;
+
+	private String cuerpo;
+
+	private Long conversacion;
+
+	public MensajeArchivado() {
+		super();
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public Actor getRemitente() {
+		return remitente;
+	}
+
+	public Actor getDestinatario() {
+		return destinatario;
+	}
+
+	public Date getFechaEnvio() {
+		return fechaEnvio;
+	}
+
+	public Date getFechaLectura() {
+		return fechaLectura;
+	}
+
+	public String getAsunto() {
+		return asunto;
+	}
+
+	public String getCuerpo() {
+		return cuerpo;
+	}
+
+	public Long getConversacion() {
+		return conversacion;
+	}
+}
@@ -0,0 +1,53 @@
+package manyWorker.entity;
+
+import java.util.Date;
+
+// Mensaje tal como se devuelve al cliente: de remitente y destinatario solo id, username y nombre.
+// Las consultas de MensajeRepository y BroadcastRepository lo construyen directamente (SELECT new),
+// así que no se cargan ni se serializan los Actor completos (contraseña, perfiles, dirección...).
+// En los broadcasts el destinatario es null: van para todos.
+public record MensajeVista(int id, Parte remitente, Parte destinatario, Date fechaEnvio, Date fechaLectura,
+		String asunto, String cuerpo, boolean broadcast) {
+
+	public record Parte(int id, String username, String nombre) {
+
+		static Parte de(Actor actor) {
+			return actor == null ? null : new Parte(actor.getId(), actor.getUsername(), nombreVisible(actor.getNombre(), actor.getApellido()));
+		}
+	}
+
+	// Constructor de las consultas de mensajes (en SELECT new los argumentos van planos)
+	public MensajeVista(int id, int remitenteId, String remitenteUsername, String remitenteNombre, String remitenteApellido,
+			int destinatarioId, String destinatarioUsername, String destinatarioNombre, String destinatarioApellido,
+			Date fechaEnvio, Date fechaLectura, String asunto, String cuerpo) {
+		this(id, new Parte(remitenteId, remitenteUsername, nombreVisible(remitenteNombre, remitenteApellido)),
+				new Parte(destinatarioId, destinatarioUsername, nombreVisible(destinatarioNombre, destinatarioApellido)),
+				fechaEnvio, fechaLectura, asunto, cuerpo, false);
+	}
+
+	// Constructor de las consultas de broadcasts
+	public MensajeVista(int id, int remitenteId, String remitenteUsername, String remitenteNombre, String remitenteApellido,
+			Date fechaEnvio, String asunto, String cuerpo) {
+		this(id, new Parte(remitenteId, remitenteUsername, nombreVisible(remitenteNombre, remitenteApellido)), null,
+				fechaEnvio, null, asunto, cuerpo, true);
+	}
+
+	public static MensajeVista de(Mensaje mensaje) {
+		return new MensajeVista(mensaje.getId(), Parte.de(mensaje.getRemitente()), Parte.de(mensaje.getDestinatario()),
+				mensaje.getFechaEnvio(), mensaje.getFechaLectura(), mensaje.getAsunto(), mensaje.getCuerpo(), false);
+	}
+
+	public static MensajeVista de(Broadcast broadcast) {
+		return new MensajeVista(broadcast.getId(), Parte.de(broadcast.getRemitente()), null, broadcast.getFechaEnvio(),
+				null, broadcast.getAsunto(), broadcast.getCuerpo(), true);
+	}
+
+	// Copia con la fecha de lectura (los broadcasts la toman del contador del lector)
+	public MensajeVista leido(Date fecha) {
+		return new MensajeVista(id, remitente, destinatario, fechaEnvio, fecha, asunto, cuerpo, broadcast);
+	}
+
+	private static String nombreVisible(String nombre, String apellido) {
+		return apellido == null || apellido.isBlank() ? nombre : nombre + " " + apellido;
+	}
+}
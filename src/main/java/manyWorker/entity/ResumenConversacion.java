@@ -0,0 +1,106 @@
+package manyWorker.entity;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.Objects;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+// Resumen de una conversación vista por uno de sus dos actores: último mensaje (en cualquier sentido)
+// y cuántos le quedan por leer de esa conversación. Hay una fila por actor e interlocutor, mantenida en
+// la misma transacción que envía, marca o borra los mensajes (ver MensajeService), para que la bandeja
+// agrupada sea un rango del índice (actor, fecha) y no un GROUP BY sobre todos los mensajes.
+// Los broadcasts no forman parte de ninguna conversación.
+@Entity
+@IdClass(ResumenConversacion.Clave.class)
+@Table(indexes = {
+	@Index(name = "idx_resumen_conversacion_actor_fecha", columnList = "actorId, fechaUltimo, interlocutorId")
+})
+public class ResumenConversacion {
+
+	@Id
+	private int actorId;
+
+	@Id
+	private int interlocutorId;
+
+	private int ultimoMensajeId;
+
+	private Date fechaUltimo;
+
+	private int noLeidos;
+
+	public ResumenConversacion() {
+		super();
+	}
+
+	public int getActorId() {
+		return actorId;
+	}
+
+	public void setActorId(int actorId) {
+		this.actorId = actorId;
+	}
+
+	public int getInterlocutorId() {
+		return interlocutorId;
+	}
+
+	public void setInterlocutorId(int interlocutorId) {
+		this.interlocutorId = interlocutorId;
+	}
+
+	public int getUltimoMensajeId() {
+		return ultimoMensajeId;
+	}
+
+	public void setUltimoMensajeId(int ultimoMensajeId) {
+		this.ultimoMensajeId = ultimoMensajeId;
+	}
+
+	public Date getFechaUltimo() {
+		return fechaUltimo;
+	}
+
+	public void setFechaUltimo(Date fechaUltimo) {
+		this.fechaUltimo = fechaUltimo;
+	}
+
+	public int getNoLeidos() {
+		return noLeidos;
+	}
+
+	public void setNoLeidos(int noLeidos) {
+		this.noLeidos = noLeidos;
+	}
+
+	public static class Clave implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private int actorId;
+		private int interlocutorId;
+
+		public Clave() {
+		}
+
+		public Clave(int actorId, int interlocutorId) {
+			this.actorId = actorId;
+			this.interlocutorId = interlocutorId;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Clave c && c.actorId == actorId && c.interlocutorId == interlocutorId;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(actorId, interlocutorId);
+		}
+	}
+}
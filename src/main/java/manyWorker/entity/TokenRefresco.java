@@ -0,0 +1,84 @@
+package manyWorker.entity;
+
+import java.util.Date;
+
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ManyToOne;
+import jakarta.validation.constraints.NotNull;
+
+// Token de refresco: se guarda solo su SHA-256, nunca el valor en claro
+@Entity
+public class TokenRefresco extends DomainEntity {
+
+	@NotNull
+	@Column(unique = true, length = 64)
+	private String hash;
+
+	@NotNull
+	@ManyToOne(fetch = FetchType.LAZY)
+	@OnDelete(action = OnDeleteAction.CASCADE)
+	private Actor actor;
+
+	private Date fechaCreacion;
+
+	private Date expiracion;
+
+	private boolean revocado;
+
+	public TokenRefresco(String hash, Actor actor, Date fechaCreacion, Date expiracion) {
+		super();
+		this.hash = hash;
+		this.actor = actor;
+		this.fechaCreacion = fechaCreacion;
+		this.expiracion = expiracion;
+	}
+
+	public TokenRefresco() {
+		super();
+	}
+
+	public String getHash() {
+		return hash;
+	}
+
+	public void setHash(String hash) {
+		this.hash = hash;
+	}
+
+	public Actor getActor() {
+		return actor;
+	}
+
+	public void setActor(Actor actor) {
+		this.actor = actor;
+	}
+
+	public Date getFechaCreacion() {
+		return fechaCreacion;
+	}
+
+	public void setFechaCreacion(Date fechaCreacion) {
+		this.fechaCreacion = fechaCreacion;
+	}
+
+	public Date getExpiracion() {
+		return expiracion;
+	}
+
+	public void setExpiracion(Date expiracion) {
+		this.expiracion = expiracion;
+	}
+
+	public boolean isRevocado() {
+		return revocado;
+	}
+
+	public void setRevocado(boolean revocado) {
+		this.revocado = revocado;
+	}
+}
@@ -0,0 +1,58 @@
+package manyWorker.entity;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+
+// Token de acceso revocado antes de caducar (logout). Se borra cuando el token habría caducado.
+@Entity
+@Table(indexes = { @Index(columnList = "expiracion"), @Index(columnList = "fechaRevocacion") })
+public class TokenRevocado extends DomainEntity {
+
+	@NotNull
+	@Column(unique = true, length = 36)
+	private String jti;
+
+	private Date fechaRevocacion;
+
+	private Date expiracion;
+
+	public TokenRevocado(String jti, Date fechaRevocacion, Date expiracion) {
+		super();
+		this.jti = jti;
+		this.fechaRevocacion = fechaRevocacion;
+		this.expiracion = expiracion;
+	}
+
+	public TokenRevocado() {
+		super();
+	}
+
+	public String getJti() {
+		return jti;
+	}
+
+	public void setJti(String jti) {
+		this.jti = jti;
+	}
+
+	public Date getFechaRevocacion() {
+		return fechaRevocacion;
+	}
+
+	public void setFechaRevocacion(Date fechaRevocacion) {
+		this.fechaRevocacion = fechaRevocacion;
+	}
+
+	public Date getExpiracion() {
+		return expiracion;
+	}
+
+	public void setExpiracion(Date expiracion) {
+		this.expiracion = expiracion;
+	}
+}
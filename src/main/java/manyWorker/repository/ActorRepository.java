@@ -1,4 +1,6 @@
 package manyWorker.repository;
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -11,4 +13,14 @@ import manyWorker.entity.Actor;
 public interface ActorRepository extends JpaRepository<Actor, Integer>{
 	@Query("SELECT a FROM Actor a WHERE a.username=?1")
 	Optional<Actor> findByUsername(String username);
+	
+	@Query("SELECT a.versionSeguridad FROM Actor a WHERE a.id=?1")
+	Optional<Integer> findVersionSeguridadById(int id);
+	
+	@Query("SELECT a.id FROM Actor a WHERE a.baneado = true")
+	List<Integer> findIdsBaneados();
+	
+	// Actores que ven un broadcast (ver BroadcastRepository.findVisibles)
+	@Query("SELECT count(a) FROM Actor a WHERE a.id <> ?1 AND (a.fechaAlta IS NULL OR a.fechaAlta <= ?2)")
+	long countDestinatariosBroadcast(int remitenteId, Date fechaEnvio);
 }
@@ -0,0 +1,44 @@
+package manyWorker.repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import manyWorker.entity.Broadcast;
+import manyWorker.entity.MensajeVista;
+
+@Repository
+public interface BroadcastRepository extends JpaRepository<Broadcast, Integer> {
+
+	// Misma proyección que MensajeRepository.VISTA (sin destinatario)
+	String VISTA = "SELECT new manyWorker.entity.MensajeVista(b.id, r.id, r.username, r.nombre, r.apellido, "
+			+ "b.fechaEnvio, b.asunto, b.cuerpo) FROM Broadcast b JOIN b.remitente r ";
+
+	// Broadcasts que ve un actor: los de otros remitentes enviados desde su alta. Mismo orden y
+	// cursor que las bandejas de MensajeRepository para poder mezclar las dos listas.
+	@Query(VISTA + "WHERE b.remitente.id <> ?1 AND b.fechaEnvio >= ?2 ORDER BY b.fechaEnvio DESC, b.id DESC")
+	List<MensajeVista> findVisibles(int actorId, Date alta, Limit limite);
+
+	@Query(VISTA + "WHERE b.remitente.id <> ?1 AND b.fechaEnvio >= ?2 "
+			+ "AND (b.fechaEnvio < ?3 OR (b.fechaEnvio = ?3 AND b.id < ?4)) ORDER BY b.fechaEnvio DESC, b.id DESC")
+	List<MensajeVista> findVisiblesDespuesDe(int actorId, Date alta, Date fechaEnvio, int id, Limit limite);
+
+	@Query(VISTA + "WHERE b.id IN ?1")
+	List<MensajeVista> findVistasByIdIn(Collection<Integer> ids);
+
+	// Broadcasts sin leer: los visibles posteriores a "desde" (alta o última lectura). Son pocos y el rango va por índice.
+	@Query("SELECT count(b) FROM Broadcast b WHERE b.remitente.id <> ?1 AND b.fechaEnvio > ?2")
+	long countPosteriores(int actorId, Date desde);
+
+	@Query(VISTA + "WHERE b.remitente.id = ?1 ORDER BY b.fechaEnvio DESC, b.id DESC")
+	List<MensajeVista> findEnviados(int remitenteId, Limit limite);
+
+	@Query(VISTA + "WHERE b.remitente.id = ?1 "
+			+ "AND (b.fechaEnvio < ?2 OR (b.fechaEnvio = ?2 AND b.id < ?3)) ORDER BY b.fechaEnvio DESC, b.id DESC")
+	List<MensajeVista> findEnviadosDespuesDe(int remitenteId, Date fechaEnvio, int id, Limit limite);
+}
@@ -0,0 +1,24 @@
+package manyWorker.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import manyWorker.entity.ClaveApi;
+
+@Repository
+public interface ClaveApiRepository extends JpaRepository<ClaveApi, Integer> {
+
+	@Query("SELECT c FROM ClaveApi c WHERE c.actor.id = ?1 ORDER BY c.fechaCreacion DESC")
+	List<ClaveApi> findByActorId(int actorId);
+
+	@Query("SELECT c FROM ClaveApi c WHERE c.id = ?1 AND c.actor.id = ?2")
+	Optional<ClaveApi> findByIdAndActorId(int id, int actorId);
+
+	// Claves utilizables con su actor ya cargado, para montar el índice en memoria de una vez
+	@Query("SELECT c FROM ClaveApi c JOIN FETCH c.actor WHERE c.revocada = false")
+	List<ClaveApi> findNoRevocadasConActor();
+}
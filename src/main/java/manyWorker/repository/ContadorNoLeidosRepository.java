@@ -0,0 +1,37 @@
+package manyWorker.repository;
+
+import java.util.Date;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import manyWorker.entity.ContadorNoLeidos;
+
+@Repository
+public interface ContadorNoLeidosRepository extends JpaRepository<ContadorNoLeidos, Integer> {
+
+	// Upserts: la fila del actor se crea con el primer mensaje que recibe
+	@Modifying
+	@Query(value = "INSERT INTO contador_no_leidos (actor_id, no_leidos) VALUES (?1, ?2) "
+			+ "ON CONFLICT (actor_id) DO UPDATE SET no_leidos = contador_no_leidos.no_leidos + EXCLUDED.no_leidos",
+			nativeQuery = true)
+	int sumar(int actorId, int cantidad);
+
+	@Modifying
+	@Query("UPDATE ContadorNoLeidos c SET c.noLeidos = CASE WHEN c.noLeidos > ?2 THEN c.noLeidos - ?2 ELSE 0 END "
+			+ "WHERE c.actorId = ?1")
+	int restar(int actorId, int cantidad);
+
+	@Modifying
+	@Query(value = "INSERT INTO contador_no_leidos (actor_id, no_leidos, broadcasts_leidos_hasta) VALUES (?1, 0, ?2) "
+			+ "ON CONFLICT (actor_id) DO UPDATE SET broadcasts_leidos_hasta = "
+			+ "GREATEST(contador_no_leidos.broadcasts_leidos_hasta, EXCLUDED.broadcasts_leidos_hasta)",
+			nativeQuery = true)
+	int avanzarBroadcastsLeidos(int actorId, Date hasta);
+
+	// null si el actor no tiene mensajes archivados (o ni siquiera fila)
+	@Query("SELECT c.archivadoHasta FROM ContadorNoLeidos c WHERE c.actorId = ?1")
+	Date findArchivadoHasta(int actorId);
+}
@@ -0,0 +1,34 @@
+package manyWorker.repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import manyWorker.entity.EventoSolicitud;
+
+@Repository
+public interface EventoSolicitudRepository extends JpaRepository<EventoSolicitud, Integer> {
+
+	// Eventos listos para despachar, los más antiguos primero. SKIP LOCKED: los que otro nodo está
+	// reservando en ese momento se saltan. Hay que llamarlo dentro de la transacción que los reserva.
+	@Query(value = "SELECT * FROM evento_solicitud WHERE NOT fallido AND siguiente_intento <= ?1 "
+			+ "ORDER BY id LIMIT ?2 FOR UPDATE SKIP LOCKED", nativeQuery = true)
+	List<EventoSolicitud> findListosParaReservar(Date ahora, int lote);
+
+	@Modifying
+	@Query("UPDATE EventoSolicitud e SET e.siguienteIntento = ?2 WHERE e.id IN ?1")
+	int reservar(Collection<Integer> ids, Date hasta);
+
+	@Modifying
+	@Query("UPDATE EventoSolicitud e SET e.intentos = ?2, e.siguienteIntento = ?3, e.fallido = ?4, e.error = ?5 WHERE e.id = ?1")
+	int registrarFallo(int id, int intentos, Date siguienteIntento, boolean fallido, String error);
+
+	long countByFallidoFalse();
+
+	long countByFallidoTrue();
+}
@@ -0,0 +1,88 @@
+package manyWorker.repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import jakarta.transaction.Transactional;
+import manyWorker.entity.MensajeArchivado;
+import manyWorker.entity.MensajeVista;
+
+// Lecturas del archivo con las mismas proyecciones y cursores que MensajeRepository, para continuar
+// en él una bandeja o una conversación cuando la tabla de mensajes se queda corta
+@Repository
+public interface MensajeArchivadoRepository extends JpaRepository<MensajeArchivado, Integer> {
+
+	String VISTA = "SELECT new manyWorker.entity.MensajeVista(m.id, r.id, r.username, r.nombre, r.apellido, "
+			+ "d.id, d.username, d.nombre, d.apellido, m.fechaEnvio, m.fechaLectura, m.asunto, m.cuerpo) "
+			+ "FROM MensajeArchivado m JOIN m.remitente r JOIN m.destinatario d ";
+
+	@Query(VISTA + "WHERE m.destinatario.id = ?1 ORDER BY m.fechaEnvio DESC, m.id DESC")
+	List<MensajeVista> findRecibidos(int destinatarioId, Limit limite);
+
+	@Query(VISTA + "WHERE m.destinatario.id = ?1 "
+			+ "AND (m.fechaEnvio < ?2 OR (m.fechaEnvio = ?2 AND m.id < ?3)) ORDER BY m.fechaEnvio DESC, m.id DESC")
+	List<MensajeVista> findRecibidosDespuesDe(int destinatarioId, Date fechaEnvio, int id, Limit limite);
+
+	@Query(VISTA + "WHERE m.remitente.id = ?1 ORDER BY m.fechaEnvio DESC, m.id DESC")
+	List<MensajeVista> findEnviados(int remitenteId, Limit limite);
+
+	@Query(VISTA + "WHERE m.remitente.id = ?1 "
+			+ "AND (m.fechaEnvio < ?2 OR (m.fechaEnvio = ?2 AND m.id < ?3)) ORDER BY m.fechaEnvio DESC, m.id DESC")
+	List<MensajeVista> findEnviadosDespuesDe(int remitenteId, Date fechaEnvio, int id, Limit limite);
+
+	@Query(VISTA + "WHERE m.conversacion = ?1 ORDER BY m.fechaEnvio DESC, m.id DESC")
+	List<MensajeVista> findConversacion(long conversacion, Limit limite);
+
+	@Query(VISTA + "WHERE m.conversacion = ?1 "
+			+ "AND (m.fechaEnvio < ?2 OR (m.fechaEnvio = ?2 AND m.id < ?3)) ORDER BY m.fechaEnvio DESC, m.id DESC")
+	List<MensajeVista> findConversacionDespuesDe(long conversacion, Date fechaEnvio, int id, Limit limite);
+
+	@Query(VISTA + "WHERE m.id IN ?1")
+	List<MensajeVista> findVistasByIdIn(Collection<Integer> ids);
+
+	@Query(VISTA + "WHERE m.id = ?1")
+	Optional<MensajeVista> findVistaById(int id);
+
+	@Query("SELECT max(m.fechaEnvio) FROM MensajeArchivado m")
+	Date findFechaMasReciente();
+
+	// Borra un mensaje archivado si es del actor (remitente o destinatario); todos = true para borrar
+	// cualquiera (administradores). MensajeArchivado es de solo lectura, así que va en SQL.
+	@Modifying
+	@Transactional
+	@Query(value = "DELETE FROM mensaje_archivado WHERE id = :id "
+			+ "AND (:todos OR destinatario_id = :actor OR remitente_id = :actor)", nativeQuery = true)
+	int borrar(@Param("id") int id, @Param("actor") int actorId, @Param("todos") boolean todos);
+
+	// Mueve un lote de mensajes leídos anteriores a "antesDe" en una sola sentencia (borrado e inserción
+	// en la misma transacción). SKIP LOCKED: las filas que otro nodo o un usuario tiene bloqueadas se
+	// quedan para el siguiente lote. La partición del mes tiene que existir (ver ArchivoMensajes).
+	// En la misma sentencia avanza ContadorNoLeidos.archivadoHasta de los actores del lote, en orden de
+	// id para que dos nodos archivando a la vez no se bloqueen en cruz.
+	@Modifying
+	@Transactional
+	@Query(value = "WITH movidos AS (DELETE FROM mensaje WHERE id IN ("
+			+ "    SELECT id FROM mensaje WHERE fecha_lectura IS NOT NULL AND fecha_envio < ?1 "
+			+ "    ORDER BY fecha_envio, id LIMIT ?2 FOR UPDATE SKIP LOCKED) "
+			+ "  RETURNING id, version, remitente_id, destinatario_id, fecha_envio, fecha_lectura, asunto, cuerpo, conversacion), "
+			+ "actores AS (INSERT INTO contador_no_leidos (actor_id, no_leidos, archivado_hasta) "
+			+ "  SELECT a.actor_id, 0, max(a.fecha_envio) FROM ("
+			+ "    SELECT remitente_id AS actor_id, fecha_envio FROM movidos "
+			+ "    UNION ALL SELECT destinatario_id, fecha_envio FROM movidos) a "
+			+ "  GROUP BY a.actor_id ORDER BY a.actor_id "
+			+ "  ON CONFLICT (actor_id) DO UPDATE SET archivado_hasta = "
+			+ "  GREATEST(contador_no_leidos.archivado_hasta, EXCLUDED.archivado_hasta)) "
+			+ "INSERT INTO mensaje_archivado (id, version, remitente_id, destinatario_id, fecha_envio, fecha_lectura, asunto, cuerpo, conversacion) "
+			+ "SELECT id, version, remitente_id, destinatario_id, fecha_envio, fecha_lectura, asunto, cuerpo, conversacion FROM movidos",
+			nativeQuery = true)
+	int archivar(Date antesDe, int lote);
+}
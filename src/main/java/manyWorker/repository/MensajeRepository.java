@@ -1,16 +1,126 @@
 package manyWorker.repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.LockModeType;
 import manyWorker.entity.Mensaje;
+import manyWorker.entity.MensajeVista;
 
 @Repository
 public interface MensajeRepository extends JpaRepository<Mensaje, Integer> {
-	
-	List<Mensaje> findByRemitenteId(int remitenteId);
 
-    List<Mensaje> findByDestinatarioId(int destinatarioId);
-}
\ No newline at end of file
+	interface ResultadoBusqueda {
+		Integer getId();
+
+		Boolean getBroadcast();
+
+		Float getRango();
+
+		String getFragmento();
+
+		// null en los broadcasts
+		Integer getDestinatario();
+	}
+
+	// Proyección de las bandejas: solo las columnas de MensajeVista, sin cargar entidades Actor
+	String VISTA = "SELECT new manyWorker.entity.MensajeVista(m.id, r.id, r.username, r.nombre, r.apellido, "
+			+ "d.id, d.username, d.nombre, d.apellido, m.fechaEnvio, m.fechaLectura, m.asunto, m.cuerpo) "
+			+ "FROM Mensaje m JOIN m.remitente r JOIN m.destinatario d ";
+
+	// Bandejas paginadas por cursor (fechaEnvio, id) descendente. Cada página recorre solo
+	// su trozo del índice (actor, fechaEnvio, id), tenga el buzón el tamaño que tenga.
+	@Query(VISTA + "WHERE m.destinatario.id = ?1 ORDER BY m.fechaEnvio DESC, m.id DESC")
+	List<MensajeVista> findRecibidos(int destinatarioId, Limit limite);
+
+	@Query(VISTA + "WHERE m.destinatario.id = ?1 "
+			+ "AND (m.fechaEnvio < ?2 OR (m.fechaEnvio = ?2 AND m.id < ?3)) ORDER BY m.fechaEnvio DESC, m.id DESC")
+	List<MensajeVista> findRecibidosDespuesDe(int destinatarioId, Date fechaEnvio, int id, Limit limite);
+
+	@Query(VISTA + "WHERE m.remitente.id = ?1 ORDER BY m.fechaEnvio DESC, m.id DESC")
+	List<MensajeVista> findEnviados(int remitenteId, Limit limite);
+
+	@Query(VISTA + "WHERE m.remitente.id = ?1 "
+			+ "AND (m.fechaEnvio < ?2 OR (m.fechaEnvio = ?2 AND m.id < ?3)) ORDER BY m.fechaEnvio DESC, m.id DESC")
+	List<MensajeVista> findEnviadosDespuesDe(int remitenteId, Date fechaEnvio, int id, Limit limite);
+
+	// Conversación entre dos actores (los dos sentidos), por la clave de Mensaje.claveConversacion.
+	// Los dos actores van también como destinatarios posibles: así solo se leen sus dos particiones.
+	// Con la unión a los actores, el filtro va sobre m.destinatarioId (la columna de mensaje): sobre
+	// m.destinatario.id Hibernate lo pone en la tabla unida y PostgreSQL no lleva un IN al otro lado.
+	@Query(VISTA + "WHERE m.conversacion = ?1 AND m.destinatarioId IN (?2, ?3) ORDER BY m.fechaEnvio DESC, m.id DESC")
+	List<MensajeVista> findConversacion(long conversacion, int actorA, int actorB, Limit limite);
+
+	@Query(VISTA + "WHERE m.conversacion = ?1 AND m.destinatarioId IN (?2, ?3) "
+			+ "AND (m.fechaEnvio < ?4 OR (m.fechaEnvio = ?4 AND m.id < ?5)) ORDER BY m.fechaEnvio DESC, m.id DESC")
+	List<MensajeVista> findConversacionDespuesDe(long conversacion, int actorA, int actorB, Date fechaEnvio, int id,
+			Limit limite);
+
+	// Último mensaje que queda en una conversación (tras borrar el que lo era)
+	@Query("SELECT m FROM Mensaje m WHERE m.conversacion = ?1 AND m.destinatario.id IN (?2, ?3) "
+			+ "ORDER BY m.fechaEnvio DESC, m.id DESC")
+	List<Mensaje> findUltimosDeConversacion(long conversacion, int actorA, int actorB, Limit limite);
+
+	// Búsqueda de texto completo (columna busqueda e índices GIN de esquema-postgres.sql) en los mensajes
+	// del actor y los broadcasts que ve; todos = true para buscar en todo (administradores). Ordenada por
+	// relevancia y paginada por cursor (rango, id); la primera página pasa rango e id máximos.
+	// El fragmento resaltado solo se calcula para las filas de la página.
+	// Cada mensaje trae su destinatario, para cargar después la página leyendo solo sus particiones.
+	@Query(value = "SELECT r.id, r.broadcast, r.rango, ts_headline('spanish', r.cuerpo, q, 'MaxFragments=1, MaxWords=20, MinWords=5') AS fragmento, "
+			+ "       r.destinatario "
+			+ "FROM (SELECT m.id, false AS broadcast, ts_rank(m.busqueda, q) AS rango, m.cuerpo, m.destinatario_id AS destinatario "
+			+ "      FROM mensaje m, websearch_to_tsquery('spanish', :texto) q "
+			+ "      WHERE m.busqueda @@ q AND (:todos OR m.destinatario_id = :actor OR m.remitente_id = :actor) "
+			+ "      UNION ALL "
+			+ "      SELECT b.id, true, ts_rank(b.busqueda, q), b.cuerpo, NULL::integer "
+			+ "      FROM broadcast b, websearch_to_tsquery('spanish', :texto) q "
+			+ "      WHERE b.busqueda @@ q AND (:todos OR b.remitente_id = :actor OR b.fecha_envio >= :alta)) r, "
+			+ "     websearch_to_tsquery('spanish', :texto) q "
+			+ "WHERE r.rango < :rango OR (r.rango = :rango AND r.id < :id) "
+			+ "ORDER BY r.rango DESC, r.id DESC LIMIT :limite", nativeQuery = true)
+	List<ResultadoBusqueda> buscar(@Param("texto") String texto, @Param("actor") int actorId, @Param("todos") boolean todos,
+			@Param("alta") Date alta, @Param("rango") float rango, @Param("id") int id, @Param("limite") int limite);
+
+	// Por id sabiendo entre qué destinatarios están: solo se leen sus particiones
+	@Query(VISTA + "WHERE m.id IN ?1 AND m.destinatarioId IN ?2")
+	List<MensajeVista> findVistasByIdInDeDestinatarios(Collection<Integer> ids, Collection<Integer> destinatarios);
+
+	@Query(VISTA + "WHERE m.id = ?1")
+	Optional<MensajeVista> findVistaById(int id);
+
+	@Query(VISTA + "ORDER BY m.fechaEnvio DESC, m.id DESC")
+	List<MensajeVista> findAllVistas();
+
+	// Fecha del mensaje archivable más antiguo (índice parcial idx_mensaje_archivable de esquema-postgres.sql)
+	@Query(value = "SELECT min(fecha_envio) FROM mensaje WHERE fecha_lectura IS NOT NULL AND fecha_envio < ?1", nativeQuery = true)
+	Date findFechaMasAntiguaArchivable(Date antesDe);
+
+	// Si el mensaje existe y lo ha recibido el actor: una sola partición, y la propiedad va en la consulta
+	@Query("SELECT count(m) > 0 FROM Mensaje m WHERE m.id = ?1 AND m.destinatario.id = ?2")
+	boolean existsRecibido(int id, int destinatarioId);
+
+	// Los que van a pasar a leídos, bloqueados: así dos marcados a la vez no descuentan dos veces
+	// el mismo mensaje de los contadores (el segundo espera y ya no los ve sin leer)
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT m FROM Mensaje m WHERE m.destinatario.id = ?1 AND m.id IN ?2 AND m.fechaLectura IS NULL")
+	List<Mensaje> findSinLeerParaMarcar(int destinatarioId, Collection<Integer> ids);
+
+	// Marcado como leído en una sola sentencia; devuelve cuántos estaban sin leer (lo que baja el contador)
+	@Modifying
+	@Query("UPDATE Mensaje m SET m.fechaLectura = ?2 WHERE m.destinatario.id = ?1 AND m.id IN ?3 AND m.fechaLectura IS NULL")
+	int marcarLeidos(int destinatarioId, Date fechaLectura, Collection<Integer> ids);
+
+	@Modifying
+	@Query("UPDATE Mensaje m SET m.fechaLectura = ?2 WHERE m.destinatario.id = ?1 AND m.fechaLectura IS NULL")
+	int marcarTodosLeidos(int destinatarioId, Date fechaLectura);
+}
@@ -0,0 +1,59 @@
+package manyWorker.repository;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import manyWorker.entity.ResumenConversacion;
+
+@Repository
+public interface ResumenConversacionRepository extends JpaRepository<ResumenConversacion, ResumenConversacion.Clave> {
+
+	// Bandeja agrupada por interlocutor, paginada por cursor (fechaUltimo, interlocutorId) descendente
+	@Query("SELECT r FROM ResumenConversacion r WHERE r.actorId = ?1 ORDER BY r.fechaUltimo DESC, r.interlocutorId DESC")
+	List<ResumenConversacion> findByActor(int actorId, Limit limite);
+
+	@Query("SELECT r FROM ResumenConversacion r WHERE r.actorId = ?1 "
+			+ "AND (r.fechaUltimo < ?2 OR (r.fechaUltimo = ?2 AND r.interlocutorId < ?3)) "
+			+ "ORDER BY r.fechaUltimo DESC, r.interlocutorId DESC")
+	List<ResumenConversacion> findByActorDespuesDe(int actorId, Date fechaUltimo, int interlocutorId, Limit limite);
+
+	// Upsert con cada mensaje: la fila se crea con el primero de la conversación. Solo pasa a ser el
+	// último si es posterior al que ya hay (dos envíos concurrentes pueden confirmarse en otro orden).
+	@Modifying
+	@Query(value = "INSERT INTO resumen_conversacion (actor_id, interlocutor_id, ultimo_mensaje_id, fecha_ultimo, no_leidos) "
+			+ "VALUES (?1, ?2, ?3, ?4, ?5) ON CONFLICT (actor_id, interlocutor_id) DO UPDATE SET "
+			+ "no_leidos = resumen_conversacion.no_leidos + EXCLUDED.no_leidos, "
+			+ "ultimo_mensaje_id = CASE WHEN (EXCLUDED.fecha_ultimo, EXCLUDED.ultimo_mensaje_id) "
+			+ "  > (resumen_conversacion.fecha_ultimo, resumen_conversacion.ultimo_mensaje_id) "
+			+ "  THEN EXCLUDED.ultimo_mensaje_id ELSE resumen_conversacion.ultimo_mensaje_id END, "
+			+ "fecha_ultimo = GREATEST(resumen_conversacion.fecha_ultimo, EXCLUDED.fecha_ultimo)",
+			nativeQuery = true)
+	int registrarMensaje(int actorId, int interlocutorId, int mensajeId, Date fechaEnvio, int noLeidos);
+
+	@Modifying
+	@Query("UPDATE ResumenConversacion r SET r.noLeidos = CASE WHEN r.noLeidos > ?3 THEN r.noLeidos - ?3 ELSE 0 END "
+			+ "WHERE r.actorId = ?1 AND r.interlocutorId = ?2")
+	int restarNoLeidos(int actorId, int interlocutorId, int cantidad);
+
+	@Modifying
+	@Query("UPDATE ResumenConversacion r SET r.noLeidos = 0 WHERE r.actorId = ?1 AND r.noLeidos > 0")
+	int marcarTodasLeidas(int actorId);
+
+	// Al borrar el último mensaje de una conversación, las dos filas pasan a apuntar al anterior
+	@Modifying
+	@Query("UPDATE ResumenConversacion r SET r.ultimoMensajeId = ?4, r.fechaUltimo = ?5 "
+			+ "WHERE ((r.actorId = ?1 AND r.interlocutorId = ?2) OR (r.actorId = ?2 AND r.interlocutorId = ?1)) "
+			+ "AND r.ultimoMensajeId = ?3")
+	int reemplazarUltimo(int actorA, int actorB, int borradoId, int ultimoId, Date fechaUltimo);
+
+	@Modifying
+	@Query("DELETE FROM ResumenConversacion r "
+			+ "WHERE (r.actorId = ?1 AND r.interlocutorId = ?2) OR (r.actorId = ?2 AND r.interlocutorId = ?1)")
+	int borrarConversacion(int actorA, int actorB);
+}
@@ -1,8 +1,10 @@
 package manyWorker.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import manyWorker.entity.Solicitud;
@@ -13,4 +15,9 @@ public interface SolicitudRepository extends JpaRepository<Solicitud, Integer> {
 	
 	
 	List<Solicitud> findByTareaId(String tareaId);
+
+	// Solicitudes con todo lo que necesitan las notificaciones (trabajador, tarea y cliente) en una consulta
+	@Query("SELECT s FROM Solicitud s JOIN FETCH s.trabajador JOIN FETCH s.tarea t JOIN FETCH t.cliente "
+			+ "LEFT JOIN FETCH t.categoria WHERE s.id IN ?1")
+	List<Solicitud> findParaNotificar(Collection<Integer> ids);
 }
\ No newline at end of file
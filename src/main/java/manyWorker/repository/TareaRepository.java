@@ -1,6 +1,9 @@
 package manyWorker.repository;
 
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import manyWorker.entity.Tarea;
@@ -8,4 +11,8 @@ import manyWorker.entity.Tarea;
 @Repository
 public interface TareaRepository extends JpaRepository<Tarea, String> {
 	boolean existsByCategoria_Id(String id);
+
+	// Tarea con su categoría y su cliente en una sola consulta (la usa la creación de solicitudes)
+	@Query("SELECT t FROM Tarea t LEFT JOIN FETCH t.categoria JOIN FETCH t.cliente WHERE t.id = ?1")
+	Optional<Tarea> findConCategoriaYClienteById(String id);
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package manyWorker.repository;
+
+import java.util.Date;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import manyWorker.entity.TokenRefresco;
+
+@Repository
+public interface TokenRefrescoRepository extends JpaRepository<TokenRefresco, Integer> {
+
+	Optional<TokenRefresco> findByHash(String hash);
+
+	// Marca el token como usado; devuelve 0 si ya lo estaba (reutilización) o no existe
+	@Modifying
+	@Query("UPDATE TokenRefresco t SET t.revocado = true WHERE t.id = ?1 AND t.revocado = false")
+	int revocarSiVigente(int id);
+
+	@Modifying
+	@Query("UPDATE TokenRefresco t SET t.revocado = true WHERE t.actor.id = ?1 AND t.revocado = false")
+	int revocarTodosDelActor(int actorId);
+
+	@Modifying
+	@Query("DELETE FROM TokenRefresco t WHERE t.expiracion < ?1")
+	int borrarCaducados(Date fecha);
+}
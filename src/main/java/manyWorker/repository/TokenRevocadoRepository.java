@@ -0,0 +1,29 @@
+package manyWorker.repository;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import manyWorker.entity.TokenRevocado;
+
+@Repository
+public interface TokenRevocadoRepository extends JpaRepository<TokenRevocado, Integer> {
+
+	boolean existsByJti(String jti);
+
+	// jti de los tokens revocados que aún no han caducado, para reconstruir el filtro de Bloom
+	@Query("SELECT t.jti FROM TokenRevocado t WHERE t.expiracion > ?1")
+	List<String> findJtisVigentes(Date ahora);
+
+	// Revocaciones hechas desde la última sincronización (también por otros nodos)
+	@Query("SELECT t.jti FROM TokenRevocado t WHERE t.fechaRevocacion >= ?1")
+	List<String> findJtisRevocadosDesde(Date fecha);
+
+	@Modifying
+	@Query("DELETE FROM TokenRevocado t WHERE t.expiracion < ?1")
+	int borrarCaducados(Date fecha);
+}
@@ -0,0 +1,62 @@
+package manyWorker.security;
+
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import manyWorker.entity.Actor;
+import manyWorker.repository.ActorRepository;
+
+// Actor autenticado de la petición en curso.
+// Se resuelve con una única consulta polimórfica (devuelve ya el Admin, Cliente o Trabajador concreto)
+// y se guarda como atributo de la petición, de modo que servicios y controladores lo comparten.
+// Fuera de una petición HTTP (tareas en segundo plano) no se memoriza.
+@Component
+public class ActorActual {
+
+	private static final String ATRIBUTO = ActorActual.class.getName();
+
+	@Autowired
+	private ActorRepository actorRepository;
+
+	public Optional<Actor> obtener() {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		if (authentication == null || authentication.getName() == null) {
+			return Optional.empty();
+		}
+		String username = authentication.getName();
+
+		RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+		if (atributos != null) {
+			Object memo = atributos.getAttribute(ATRIBUTO, RequestAttributes.SCOPE_REQUEST);
+			if (memo instanceof Actor actor && username.equals(actor.getUsername())) {
+				return Optional.of(actor);
+			}
+		}
+
+		Optional<Actor> actor;
+		if (authentication.getPrincipal() instanceof ActorPrincipal principal) {
+			actor = actorRepository.findById(principal.getId());
+		} else {
+			actor = actorRepository.findByUsername(username);
+		}
+
+		if (atributos != null && actor.isPresent()) {
+			atributos.setAttribute(ATRIBUTO, actor.get(), RequestAttributes.SCOPE_REQUEST);
+		}
+		return actor;
+	}
+
+	public int obtenerId() {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		if (authentication != null && authentication.getPrincipal() instanceof ActorPrincipal principal) {
+			return principal.getId();
+		}
+		return obtener().map(Actor::getId).orElse(0);
+	}
+}
@@ -0,0 +1,54 @@
+package manyWorker.security;
+
+import java.util.List;
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import manyWorker.entity.Actor;
+import manyWorker.entity.Roles;
+
+// UserDetails de la aplicación: además del username y el rol guarda el id del actor
+// y su versión de seguridad, para no tener que volver a la BD a buscarlos.
+public class ActorPrincipal extends User {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int id;
+	private final Roles rol;
+	private final int versionSeguridad;
+
+	public ActorPrincipal(int id, String username, String password, Roles rol, int versionSeguridad) {
+		this(id, username, password, rol, versionSeguridad, false);
+	}
+
+	// Un actor baneado queda como cuenta bloqueada: el login falla antes de comprobar la contraseña
+	public ActorPrincipal(int id, String username, String password, Roles rol, int versionSeguridad, boolean baneado) {
+		super(username, password, true, true, true, !baneado, List.of(new SimpleGrantedAuthority(rol.toString())));
+		this.id = id;
+		this.rol = rol;
+		this.versionSeguridad = versionSeguridad;
+	}
+
+	// Principal construido solo a partir de los claims del token (sin password)
+	public ActorPrincipal(int id, String username, Roles rol, int versionSeguridad) {
+		this(id, username, "", rol, versionSeguridad);
+	}
+
+	public ActorPrincipal(Actor actor) {
+		this(actor.getId(), actor.getUsername(), actor.getPassword(), actor.getRol(), actor.getVersionSeguridad(),
+				actor.isBaneado());
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public Roles getRol() {
+		return rol;
+	}
+
+	public int getVersionSeguridad() {
+		return versionSeguridad;
+	}
+}
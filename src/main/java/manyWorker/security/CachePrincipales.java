@@ -0,0 +1,49 @@
+package manyWorker.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+// Cache de los UserDetails ya resueltos, indexada por username.
+// Evita ir a la BD en cada petición autenticada: el JWT ya prueba quién es el usuario.
+// Los servicios de actores deben invalidar la entrada al actualizar, borrar o banear.
+@Component
+public class CachePrincipales {
+
+	private final CacheTTL<String, UserDetails> cache;
+
+	public CachePrincipales(@Value("${manyworker.seguridad.cache-principales.tamano:10000}") int tamano,
+			@Value("${manyworker.seguridad.cache-principales.ttl-segundos:300}") long ttlSegundos) {
+		this.cache = new CacheTTL<>(tamano, ttlSegundos * 1000L);
+	}
+
+	public UserDetails obtener(String username, Function<String, UserDetails> cargador) {
+		return cache.get(username, cargador);
+	}
+
+	public void invalidar(String username) {
+		if (username != null) {
+			cache.invalidar(username);
+		}
+	}
+
+	public void invalidarTodo() {
+		cache.invalidarTodo();
+	}
+
+	public Map<String, Object> getMetricas() {
+		Map<String, Object> metricas = new LinkedHashMap<>();
+		long aciertos = cache.getAciertos();
+		long fallos = cache.getFallos();
+		metricas.put("entradas", cache.size());
+		metricas.put("aciertos", aciertos);
+		metricas.put("fallos", fallos);
+		metricas.put("desalojos", cache.getDesalojos());
+		metricas.put("ratioAciertos", aciertos + fallos == 0 ? 0.0 : (double) aciertos / (aciertos + fallos));
+		return metricas;
+	}
+}
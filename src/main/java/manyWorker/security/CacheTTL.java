@@ -0,0 +1,129 @@
+package manyWorker.security;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Cache en memoria acotada por tamaño y con caducidad por entrada.
+// Pensada para datos pequeños que se consultan en cada petición (principales, claims, etc.).
+// Cuando se supera el tamaño máximo se eliminan primero las entradas caducadas y,
+// si no basta, una parte de las restantes.
+public class CacheTTL<K, V> {
+
+	private static final class Entrada<V> {
+		private final V valor;
+		private final long expiraEn;
+
+		private Entrada(V valor, long expiraEn) {
+			this.valor = valor;
+			this.expiraEn = expiraEn;
+		}
+	}
+
+	private final Map<K, Entrada<V>> entradas = new ConcurrentHashMap<>();
+	private final int tamanoMaximo;
+	private final long ttlMillis;
+
+	private final LongAdder aciertos = new LongAdder();
+	private final LongAdder fallos = new LongAdder();
+	private final LongAdder desalojos = new LongAdder();
+
+	public CacheTTL(int tamanoMaximo, long ttlMillis) {
+		this.tamanoMaximo = tamanoMaximo;
+		this.ttlMillis = ttlMillis;
+	}
+
+	// Devuelve el valor si está en cache y no ha caducado, o null en caso contrario
+	public V get(K clave) {
+		Entrada<V> entrada = entradas.get(clave);
+		if (entrada == null) {
+			fallos.increment();
+			return null;
+		}
+		if (entrada.expiraEn <= System.currentTimeMillis()) {
+			entradas.remove(clave, entrada);
+			fallos.increment();
+			return null;
+		}
+		aciertos.increment();
+		return entrada.valor;
+	}
+
+	// Devuelve el valor en cache o lo calcula con el cargador y lo guarda con el TTL por defecto
+	public V get(K clave, Function<K, V> cargador) {
+		V valor = get(clave);
+		if (valor == null) {
+			valor = cargador.apply(clave);
+			if (valor != null) {
+				put(clave, valor);
+			}
+		}
+		return valor;
+	}
+
+	public void put(K clave, V valor) {
+		long ahora = System.currentTimeMillis();
+		putHasta(clave, valor, ahora + ttlMillis);
+	}
+
+	// Guarda el valor con una caducidad concreta (nunca posterior al TTL configurado)
+	public void putHasta(K clave, V valor, long expiraEn) {
+		long ahora = System.currentTimeMillis();
+		long limite = Math.min(expiraEn, ahora + ttlMillis);
+		if (limite <= ahora) {
+			return;
+		}
+		if (entradas.size() >= tamanoMaximo && !entradas.containsKey(clave)) {
+			liberarEspacio(ahora);
+		}
+		entradas.put(clave, new Entrada<>(valor, limite));
+	}
+
+	public void invalidar(K clave) {
+		entradas.remove(clave);
+	}
+
+	public void invalidarTodo() {
+		entradas.clear();
+	}
+
+	public int size() {
+		return entradas.size();
+	}
+
+	public long getAciertos() {
+		return aciertos.sum();
+	}
+
+	public long getFallos() {
+		return fallos.sum();
+	}
+
+	public long getDesalojos() {
+		return desalojos.sum();
+	}
+
+	private void liberarEspacio(long ahora) {
+		// 1. Quitar las entradas caducadas
+		Iterator<Map.Entry<K, Entrada<V>>> it = entradas.entrySet().iterator();
+		while (it.hasNext()) {
+			if (it.next().getValue().expiraEn <= ahora) {
+				it.remove();
+				desalojos.increment();
+			}
+		}
+		// 2. Si sigue llena, quitar una décima parte de las entradas (aproximado, sin ordenar el mapa)
+		if (entradas.size() >= tamanoMaximo) {
+			int aQuitar = Math.max(1, tamanoMaximo / 10);
+			it = entradas.entrySet().iterator();
+			while (it.hasNext() && aQuitar > 0) {
+				it.next();
+				it.remove();
+				desalojos.increment();
+				aQuitar--;
+			}
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package manyWorker.security;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Filtro de Bloom para cadenas: dice con seguridad que un valor NO está, y con una probabilidad
+// de falso positivo acotada que SÍ está. No admite borrados; para quitar valores se construye otro.
+// Las inserciones son sin locks (cada bit se pone con CAS) y se pueden hacer mientras otros hilos consultan.
+public class FiltroBloom {
+
+	private final AtomicLongArray bits;
+	private final int numBits;
+	private final int numHashes;
+	private final AtomicInteger elementos = new AtomicInteger();
+
+	// Dimensiona el filtro para "capacidad" elementos con la probabilidad de falso positivo indicada
+	public FiltroBloom(int capacidad, double probabilidadFalsoPositivo) {
+		int n = Math.max(1, capacidad);
+		double p = Math.min(0.5, Math.max(1e-9, probabilidadFalsoPositivo));
+		long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+		this.numBits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, m));
+		this.numHashes = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+		this.bits = new AtomicLongArray((numBits + 63) / 64);
+	}
+
+	public void agregar(String valor) {
+		long hash = hash64(valor);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 0; i < numHashes; i++) {
+			int bit = posicion(h1 + i * h2);
+			int palabra = bit >>> 6;
+			long mascara = 1L << bit;
+			long actual;
+			do {
+				actual = bits.get(palabra);
+				if ((actual & mascara) != 0) {
+					break;
+				}
+			} while (!bits.compareAndSet(palabra, actual, actual | mascara));
+		}
+		elementos.incrementAndGet();
+	}
+
+	public boolean puedeContener(String valor) {
+		long hash = hash64(valor);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 0; i < numHashes; i++) {
+			int bit = posicion(h1 + i * h2);
+			if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public int getElementos() {
+		return elementos.get();
+	}
+
+	public int getNumBits() {
+		return numBits;
+	}
+
+	public int getNumHashes() {
+		return numHashes;
+	}
+
+	private int posicion(int combinado) {
+		return (combinado & Integer.MAX_VALUE) % numBits;
+	}
+
+	// FNV-1a de 64 bits con un mezclado final para repartir bien los bits altos y bajos
+	private static long hash64(String valor) {
+		long h = 0xcbf29ce484222325L;
+		for (byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+			h ^= b;
+			h *= 0x100000001b3L;
+		}
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
@@ -1,19 +1,27 @@
 package manyWorker.security;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import manyWorker.entity.Roles;
 import manyWorker.service.ActorService;
 
 @Component
@@ -24,17 +32,109 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
 	@Autowired
 	private JWTUtils JWTUtils;
 	
+	@Autowired
+	private CachePrincipales cachePrincipales;
+	
+	@Autowired
+	private RegistroVersionesSeguridad registroVersiones;
+	
+	@Autowired
+	private RegistroBaneos registroBaneos;
+	
+	@Autowired
+	private RegistroRevocaciones registroRevocaciones;
+	
+	@Autowired
+	private RegistroClavesApi registroClavesApi;
+	
+	// Claims del token de la petición, para quien necesite su jti o su caducidad (p. ej. los streams SSE)
+	public static final String ATRIBUTO_CLAIMS = JWTAuthenticationFilter.class.getName() + ".claims";
+	
+	private static final GrantedAuthority AUTORIDAD_CLAVE_API = new SimpleGrantedAuthority(RegistroClavesApi.AUTORIDAD);
+	
+	// Modo "solo claims": el principal se construye con los datos del token, sin consultar la tabla de actores
+	@Value("${manyworker.seguridad.auth-solo-claims:false}")
+	private boolean autenticacionSoloClaims;
+	
 	@Override
 	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
 			throws ServletException, IOException {
 		String token = JWTUtils.getToken(request);
-		if (StringUtils.hasText(token) && JWTUtils.validateToken(token)) {
-			String username = JWTUtils.getUsernameOfToken(token);
-			UserDetails userDetails = actorService.loadUserByUsername(username);
-			UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-					userDetails, null, userDetails.getAuthorities());
-			SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+		String claveApi = request.getHeader(RegistroClavesApi.CABECERA);
+		if (StringUtils.hasText(token)) {
+			// Un único parseo y verificación de firma por petición
+			Claims claims = JWTUtils.getClaims(token);
+			if (registroRevocaciones.estaRevocado(claims)) {
+				throw new AuthenticationCredentialsNotFoundException("El token ha sido revocado");
+			}
+			UserDetails userDetails = obtenerPrincipal(claims);
+			if (baneado(userDetails, response)) {
+				return;
+			}
+			SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+					userDetails, null, userDetails.getAuthorities()));
+			request.setAttribute(ATRIBUTO_CLAIMS, claims);
+		} else if (StringUtils.hasText(claveApi)) {
+			// Integraciones: la clave se resuelve en memoria, sin BCrypt ni BD
+			RegistroClavesApi.Entrada entrada = registroClavesApi.resolver(claveApi)
+					.orElseThrow(() -> new AuthenticationCredentialsNotFoundException("Clave de API no válida"));
+			if (entrada.soloLectura() && !esLectura(request)) {
+				rechazar(response, "La clave de API es de solo lectura");
+				return;
+			}
+			ActorPrincipal principal = entrada.principal();
+			if (baneado(principal, response)) {
+				return;
+			}
+			List<GrantedAuthority> autoridades = new ArrayList<>(principal.getAuthorities());
+			autoridades.add(AUTORIDAD_CLAVE_API);
+			SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+					principal, null, autoridades));
 		}
 		filterChain.doFilter(request, response);
 	}
+	
+	// Baneo comprobado en memoria: el usuario queda fuera en cuanto se le banea
+	private boolean baneado(UserDetails userDetails, HttpServletResponse response) throws IOException {
+		if (userDetails instanceof ActorPrincipal principal && registroBaneos.estaBaneado(principal.getId())) {
+			rechazar(response, "Usuario baneado");
+			return true;
+		}
+		return false;
+	}
+	
+	private static void rechazar(HttpServletResponse response, String motivo) throws IOException {
+		response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+		response.setContentType("text/plain;charset=UTF-8");
+		response.getWriter().write(motivo);
+	}
+	
+	private static boolean esLectura(HttpServletRequest request) {
+		String metodo = request.getMethod();
+		return "GET".equals(metodo) || "HEAD".equals(metodo) || "OPTIONS".equals(metodo);
+	}
+	
+	private UserDetails obtenerPrincipal(Claims claims) {
+		String username = claims.getSubject();
+		Integer id = claims.get("id", Integer.class);
+		Integer versionToken = claims.get("sv", Integer.class);
+		
+		// Tokens emitidos antes de añadir id/sv: siempre por el camino clásico
+		if (id == null || versionToken == null) {
+			return cachePrincipales.obtener(username, actorService::loadUserByUsername);
+		}
+		
+		if (autenticacionSoloClaims) {
+			if (!registroVersiones.esVigente(id, versionToken)) {
+				throw new AuthenticationCredentialsNotFoundException("La sesión ha sido revocada");
+			}
+			return new ActorPrincipal(id, username, Roles.valueOf(claims.get("rol", String.class)), versionToken);
+		}
+		
+		UserDetails userDetails = cachePrincipales.obtener(username, actorService::loadUserByUsername);
+		if (userDetails instanceof ActorPrincipal principal && principal.getVersionSeguridad() != versionToken) {
+			throw new AuthenticationCredentialsNotFoundException("La sesión ha sido revocada");
+		}
+		return userDetails;
+	}
 }
@@ -1,44 +1,51 @@
 package manyWorker.security;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
-import java.util.Optional;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import jakarta.servlet.http.HttpServletRequest;
-import manyWorker.entity.Actor;
-import manyWorker.service.ActorService;
-import manyWorker.service.AdminService;
-import manyWorker.service.ClienteService;
-import manyWorker.service.TrabajadorService;
 
 @Component
 public class JWTUtils {
 	@Autowired
-	private ActorService actorService;
-
-	@Autowired
-	@Lazy
-	private AdminService adminService;
-	
-	@Autowired
-	@Lazy
-	private TrabajadorService trabajadorService;
-	
-	@Autowired
-	@Lazy
-	private ClienteService clienteService;
+	private ActorActual actorActual;
 
 	private static final String JWT_FIRMA = "ManyWorker";
-	private static final long EXTENCION_TOKEN = 86400 * 1000L;
+
+	// Duración de los tokens de acceso: cortos, se renuevan con el token de refresco
+	private final long extencionToken;
+
+	// Parser reutilizable: se configura una sola vez y no guarda estado entre llamadas
+	private final JwtParser parser = Jwts.parser().setSigningKey(JWT_FIRMA);
+
+	// Cache de claims ya verificados, indexada por el SHA-256 del token.
+	// Cada entrada caduca como muy tarde cuando lo hace el propio token.
+	private final CacheTTL<String, Claims> cacheClaims;
+
+	public JWTUtils(@Value("${manyworker.seguridad.cache-tokens.tamano:10000}") int tamanoCacheTokens,
+			@Value("${manyworker.seguridad.cache-tokens.ttl-segundos:900}") long ttlCacheTokens,
+			@Value("${manyworker.jwt.duracion-acceso-segundos:900}") long duracionAccesoSegundos) {
+		this.cacheClaims = new CacheTTL<>(tamanoCacheTokens, ttlCacheTokens * 1000L);
+		this.extencionToken = duracionAccesoSegundos * 1000L;
+	}
 
 	public String getToken(HttpServletRequest request) {
 		String tokenBearer = request.getHeader("Authorization");
@@ -48,48 +55,84 @@ public class JWTUtils {
 		return null;
 	}
 
-	public boolean validateToken(String token) {
+	// Verifica la firma y la caducidad del token una única vez y devuelve sus claims.
+	// Las siguientes llamadas con el mismo token se resuelven desde la cache sin volver a calcular el HMAC.
+	public Claims getClaims(String token) {
+		String digest = sha256(token);
+		Claims claims = cacheClaims.get(digest);
+		if (claims != null) {
+			return claims;
+		}
 		try {
-			Jwts.parser().setSigningKey(JWT_FIRMA).parseClaimsJws(token);
-			return true;
+			claims = parser.parseClaimsJws(token).getBody();
 		} catch (Exception e) {
 			throw new AuthenticationCredentialsNotFoundException("JWT ha experido o no es valido");
 		}
+		if (claims.getExpiration() != null) {
+			cacheClaims.putHasta(digest, claims, claims.getExpiration().getTime());
+		}
+		return claims;
+	}
+
+	public boolean validateToken(String token) {
+		getClaims(token);
+		return true;
 	}
 
 	public String generateToken(Authentication authentication) {
-		String username = authentication.getName();
-		Date fechaActual = new Date();
-		Date fechaExpiracion = new Date(fechaActual.getTime() + EXTENCION_TOKEN);
+		if (authentication.getPrincipal() instanceof ActorPrincipal principal) {
+			return generateToken(principal);
+		}
 		String rol = authentication.getAuthorities().iterator().next().getAuthority();
-		String token = Jwts.builder().setSubject(username).setIssuedAt(fechaActual).setExpiration(fechaExpiracion)
-				.claim("rol", rol).signWith(SignatureAlgorithm.HS512, JWT_FIRMA).compact();
-		return token;
+		return construirToken(authentication.getName(), rol).signWith(SignatureAlgorithm.HS512, JWT_FIRMA).compact();
+	}
+
+	// Con el id y la versión de seguridad el filtro puede autenticar sin consultar la BD
+	public String generateToken(ActorPrincipal principal) {
+		return construirToken(principal.getUsername(), principal.getRol().toString())
+				.claim("id", principal.getId())
+				.claim("sv", principal.getVersionSeguridad())
+				.signWith(SignatureAlgorithm.HS512, JWT_FIRMA).compact();
+	}
+
+	// Cada token lleva un jti único para poder revocarlo individualmente (logout)
+	private JwtBuilder construirToken(String username, String rol) {
+		Date fechaActual = new Date();
+		Date fechaExpiracion = new Date(fechaActual.getTime() + extencionToken);
+		return Jwts.builder().setId(UUID.randomUUID().toString()).setSubject(username).setIssuedAt(fechaActual)
+				.setExpiration(fechaExpiracion).claim("rol", rol);
+	}
+
+	public long getDuracionAccesoSegundos() {
+		return extencionToken / 1000L;
 	}
 
 	public String getUsernameOfToken(String token) {
-		return Jwts.parser().setSigningKey(JWT_FIRMA).parseClaimsJws(token).getBody().getSubject();
+		return getClaims(token).getSubject();
 	}
 
-	public <T> T userLogin() {
-		String username = SecurityContextHolder.getContext().getAuthentication().getName();
-		if (StringUtils.isEmpty(username)) {
-			return null;
-		}
-		Optional<Actor> actorO = actorService.findByUsername(username);
-		if (!actorO.isPresent()) {
-			return null;
-		}
-		Actor actor = actorO.get();
-		switch (actor.getRol()) {
-		case ADMINISTRADOR:
-			return (T) adminService.findByUsername(username).orElse(null);
-		case TRABAJADOR: 
-            return (T) trabajadorService.findByUsername(username).orElse(null);
-		case CLIENTE: 
-            return (T) clienteService.findByUsername(username).orElse(null);
-		default:
-			return null;
+	public Map<String, Object> getMetricas() {
+		Map<String, Object> metricas = new LinkedHashMap<>();
+		metricas.put("entradas", cacheClaims.size());
+		metricas.put("aciertos", cacheClaims.getAciertos());
+		metricas.put("fallos", cacheClaims.getFallos());
+		metricas.put("desalojos", cacheClaims.getDesalojos());
+		return metricas;
+	}
+
+	public static String sha256(String valor) {
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(md.digest(valor.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 no disponible", e);
 		}
 	}
+
+	// Devuelve el actor autenticado ya con su tipo concreto (Admin, Trabajador o Cliente).
+	// La consulta se hace una sola vez por petición (ver ActorActual).
+	@SuppressWarnings("unchecked")
+	public <T> T userLogin() {
+		return (T) actorActual.obtener().orElse(null);
+	}
 }
@@ -0,0 +1,143 @@
+package manyWorker.security;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Limitador de intentos de login por username y por IP, para que un ataque de fuerza bruta
+// no llegue al BCrypt. Cada clave tiene un "token bucket" implementado con el algoritmo GCRA:
+// basta un único long por clave (el instante teórico de la próxima llegada) que se actualiza con CAS,
+// así que no hay locks. Las claves se reparten en varias franjas (ConcurrentHashMap) para acotar
+// la memoria y que la limpieza no recorra todo de golpe. Con una franja llena, las claves nuevas que caen
+// en ella se rechazan hasta que se vacíe algún bucket: dejarlas pasar abriría la puerta justo al ataque
+// que llena la memoria (usuarios e IPs distintos en cada intento).
+@Component
+public class LimitadorLogin {
+
+	private static final int FRANJAS = 16;
+
+	// Parámetros de un bucket: cada cuánto se repone un intento y cuántos se permiten de golpe
+	private static final class Limite {
+		private final long intervaloMillis;
+		private final long toleranciaMillis;
+
+		private Limite(int rafaga, int porMinuto) {
+			this.intervaloMillis = Math.max(1, 60_000L / Math.max(1, porMinuto));
+			this.toleranciaMillis = intervaloMillis * (Math.max(1, rafaga) - 1);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private final Map<String, AtomicLong>[] franjas = new ConcurrentHashMap[FRANJAS];
+	private final int maxClavesPorFranja;
+	private final Limite limiteUsuario;
+	private final Limite limiteIp;
+
+	private final LongAdder permitidos = new LongAdder();
+	private final LongAdder rechazadosUsuario = new LongAdder();
+	private final LongAdder rechazadosIp = new LongAdder();
+	private final LongAdder rechazadosMemoria = new LongAdder();
+
+	public LimitadorLogin(@Value("${manyworker.seguridad.login.usuario.rafaga:5}") int rafagaUsuario,
+			@Value("${manyworker.seguridad.login.usuario.por-minuto:5}") int porMinutoUsuario,
+			@Value("${manyworker.seguridad.login.ip.rafaga:20}") int rafagaIp,
+			@Value("${manyworker.seguridad.login.ip.por-minuto:30}") int porMinutoIp,
+			@Value("${manyworker.seguridad.login.max-claves:100000}") int maxClaves) {
+		for (int i = 0; i < FRANJAS; i++) {
+			franjas[i] = new ConcurrentHashMap<>();
+		}
+		this.maxClavesPorFranja = Math.max(1, maxClaves / FRANJAS);
+		this.limiteUsuario = new Limite(rafagaUsuario, porMinutoUsuario);
+		this.limiteIp = new Limite(rafagaIp, porMinutoIp);
+	}
+
+	// Devuelve 0 si el intento está permitido, o los milisegundos que hay que esperar si no
+	public long intentar(String username, String ip) {
+		long ahora = System.currentTimeMillis();
+		long esperaIp = consumir("ip:" + ip, limiteIp, ahora);
+		if (esperaIp > 0) {
+			rechazadosIp.increment();
+			return esperaIp;
+		}
+		long esperaUsuario = consumir("u:" + username.toLowerCase(), limiteUsuario, ahora);
+		if (esperaUsuario > 0) {
+			rechazadosUsuario.increment();
+			return esperaUsuario;
+		}
+		permitidos.increment();
+		return 0;
+	}
+
+	private long consumir(String clave, Limite limite, long ahora) {
+		Map<String, AtomicLong> franja = franjas[(clave.hashCode() & 0x7fffffff) % FRANJAS];
+		AtomicLong llegadaTeorica = franja.get(clave);
+		if (llegadaTeorica == null) {
+			if (franja.size() >= maxClavesPorFranja) {
+				long primeraLibre = limpiar(franja, ahora);
+				if (franja.size() >= maxClavesPorFranja) {
+					// Memoria al límite: no se crean más buckets, y la clave espera a que quede uno libre
+					rechazadosMemoria.increment();
+					return Math.max(1, primeraLibre - ahora);
+				}
+			}
+			llegadaTeorica = franja.computeIfAbsent(clave, k -> new AtomicLong(0));
+		}
+		while (true) {
+			long actual = llegadaTeorica.get();
+			long base = Math.max(actual, ahora);
+			// Si la próxima llegada teórica está más lejos que la ráfaga permitida, hay que esperar
+			if (base - ahora > limite.toleranciaMillis) {
+				return base - ahora - limite.toleranciaMillis;
+			}
+			if (llegadaTeorica.compareAndSet(actual, base + limite.intervaloMillis)) {
+				return 0;
+			}
+		}
+	}
+
+	// Las claves cuyo bucket ya está lleno otra vez equivalen a no tener entrada
+	@Scheduled(fixedDelayString = "${manyworker.seguridad.login.limpieza-ms:60000}")
+	public void limpiar() {
+		long ahora = System.currentTimeMillis();
+		for (Map<String, AtomicLong> franja : franjas) {
+			limpiar(franja, ahora);
+		}
+	}
+
+	// Devuelve cuándo se vaciará el primero de los buckets que quedan (Long.MAX_VALUE si no queda ninguno)
+	private long limpiar(Map<String, AtomicLong> franja, long ahora) {
+		long primeraLibre = Long.MAX_VALUE;
+		Iterator<AtomicLong> it = franja.values().iterator();
+		while (it.hasNext()) {
+			long llegadaTeorica = it.next().get();
+			if (llegadaTeorica <= ahora) {
+				it.remove();
+			} else {
+				primeraLibre = Math.min(primeraLibre, llegadaTeorica);
+			}
+		}
+		return primeraLibre;
+	}
+
+	public Map<String, Object> getMetricas() {
+		Map<String, Object> metricas = new LinkedHashMap<>();
+		int claves = 0;
+		for (Map<String, AtomicLong> franja : franjas) {
+			claves += franja.size();
+		}
+		metricas.put("claves", claves);
+		metricas.put("permitidos", permitidos.sum());
+		metricas.put("rechazadosUsuario", rechazadosUsuario.sum());
+		metricas.put("rechazadosIp", rechazadosIp.sum());
+		// Parte de los anteriores: rechazados porque su franja estaba llena
+		metricas.put("rechazadosMemoria", rechazadosMemoria.sum());
+		return metricas;
+	}
+}
@@ -0,0 +1,122 @@
+package manyWorker.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+// PasswordEncoder BCrypt que ejecuta los hashes en un pool de hilos acotado.
+// Así los picos de login no se comen la CPU de los hilos que atienden el resto de peticiones:
+// como mucho hay "hilos" hashes en paralelo y "capacidadCola" esperando; el resto se rechaza.
+// Si el coste de un hash guardado es menor que el configurado, upgradeEncoding devuelve true
+// y Spring Security lo vuelve a calcular tras un login correcto (ver ActorService.updatePassword).
+public class PasswordEncoderLimitado implements PasswordEncoder, DisposableBean {
+
+	private final BCryptPasswordEncoder bcrypt;
+	private final ThreadPoolExecutor ejecutor;
+	private final long timeoutMillis;
+
+	private final LongAdder rechazadas = new LongAdder();
+	private final LongAdder timeouts = new LongAdder();
+	private final LongAdder esperaTotalNanos = new LongAdder();
+	private final LongAdder completadas = new LongAdder();
+
+	public PasswordEncoderLimitado(int coste, int hilos, int capacidadCola, long timeoutMillis) {
+		this.bcrypt = new BCryptPasswordEncoder(coste);
+		this.timeoutMillis = timeoutMillis;
+		AtomicInteger contador = new AtomicInteger();
+		this.ejecutor = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(capacidadCola), r -> {
+					Thread t = new Thread(r, "bcrypt-" + contador.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}, new ThreadPoolExecutor.AbortPolicy());
+	}
+
+	@Override
+	public String encode(CharSequence rawPassword) {
+		return ejecutar(() -> bcrypt.encode(rawPassword));
+	}
+
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		return ejecutar(() -> bcrypt.matches(rawPassword, encodedPassword));
+	}
+
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) {
+		return bcrypt.upgradeEncoding(encodedPassword);
+	}
+
+	private <T> T ejecutar(Callable<T> tarea) {
+		long encolada = System.nanoTime();
+		Future<T> futuro;
+		try {
+			futuro = ejecutor.submit(() -> {
+				esperaTotalNanos.add(System.nanoTime() - encolada);
+				return tarea.call();
+			});
+		} catch (RejectedExecutionException e) {
+			rechazadas.increment();
+			throw new LoginSaturadoException("Demasiados inicios de sesión simultáneos, inténtalo más tarde");
+		}
+		try {
+			T resultado = futuro.get(timeoutMillis, TimeUnit.MILLISECONDS);
+			completadas.increment();
+			return resultado;
+		} catch (TimeoutException e) {
+			futuro.cancel(true);
+			timeouts.increment();
+			throw new LoginSaturadoException("El cálculo de la contraseña ha superado el tiempo máximo");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new AuthenticationServiceException("Interrumpido mientras se comprobaba la contraseña", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException re) {
+				throw re;
+			}
+			throw new AuthenticationServiceException("Error comprobando la contraseña", e.getCause());
+		}
+	}
+
+	public Map<String, Object> getMetricas() {
+		Map<String, Object> metricas = new LinkedHashMap<>();
+		long hechas = completadas.sum();
+		metricas.put("hilos", ejecutor.getMaximumPoolSize());
+		metricas.put("activos", ejecutor.getActiveCount());
+		metricas.put("enCola", ejecutor.getQueue().size());
+		metricas.put("huecosCola", ejecutor.getQueue().remainingCapacity());
+		metricas.put("completadas", hechas);
+		metricas.put("rechazadas", rechazadas.sum());
+		metricas.put("timeouts", timeouts.sum());
+		metricas.put("esperaMediaMs", hechas == 0 ? 0.0 : esperaTotalNanos.sum() / 1_000_000.0 / hechas);
+		return metricas;
+	}
+
+	@Override
+	public void destroy() {
+		ejecutor.shutdownNow();
+	}
+
+	// Se lanza cuando el pool de BCrypt está lleno; el controlador la traduce en un 503
+	public static class LoginSaturadoException extends AuthenticationServiceException {
+		private static final long serialVersionUID = 1L;
+
+		public LoginSaturadoException(String msg) {
+			super(msg);
+		}
+	}
+}
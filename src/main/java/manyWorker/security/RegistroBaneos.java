@@ -0,0 +1,84 @@
+package manyWorker.security;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import manyWorker.repository.ActorRepository;
+
+// Ids de los actores baneados en un array ordenado, para comprobar el baneo en cada petición sin ir a la BD
+// con una búsqueda binaria. Ocupa lo que el número de baneados: los ids salen de la secuencia común a todas
+// las entidades, así que un mapa de bits crecería con las filas de todo el sistema.
+// Las lecturas no llevan locks: cada cambio publica una copia nueva del array (los baneos son raros
+// y las consultas constantes). Los baneos de otros nodos se ven en la siguiente recarga.
+// ActorService lo cambia después del commit; los streams SSE del actor los cierra al revocar sus sesiones.
+@Component
+public class RegistroBaneos {
+
+	@Autowired
+	private ActorRepository actorRepository;
+
+	private volatile int[] baneados = new int[0];
+	// Cambios hechos en este nodo; si alguno llega durante una recarga, esa recarga se descarta
+	private long cambios;
+
+	@PostConstruct
+	@Scheduled(fixedDelayString = "${manyworker.seguridad.baneos.recarga-ms:60000}", initialDelayString = "${manyworker.seguridad.baneos.recarga-ms:60000}")
+	public void cargar() {
+		long cambiosAntes;
+		synchronized (this) {
+			cambiosAntes = cambios;
+		}
+		List<Integer> ids = actorRepository.findIdsBaneados();
+		int[] nuevos = ids.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+		synchronized (this) {
+			if (cambios == cambiosAntes) {
+				baneados = nuevos;
+			}
+		}
+	}
+
+	public boolean estaBaneado(int idActor) {
+		return Arrays.binarySearch(baneados, idActor) >= 0;
+	}
+
+	public synchronized void banear(int idActor) {
+		int[] actual = baneados;
+		int posicion = Arrays.binarySearch(actual, idActor);
+		if (posicion < 0) {
+			int insercion = -posicion - 1;
+			int[] copia = new int[actual.length + 1];
+			System.arraycopy(actual, 0, copia, 0, insercion);
+			copia[insercion] = idActor;
+			System.arraycopy(actual, insercion, copia, insercion + 1, actual.length - insercion);
+			baneados = copia;
+		}
+		cambios++;
+	}
+
+	public synchronized void desbanear(int idActor) {
+		int[] actual = baneados;
+		int posicion = Arrays.binarySearch(actual, idActor);
+		if (posicion >= 0) {
+			int[] copia = new int[actual.length - 1];
+			System.arraycopy(actual, 0, copia, 0, posicion);
+			System.arraycopy(actual, posicion + 1, copia, posicion, actual.length - posicion - 1);
+			baneados = copia;
+		}
+		cambios++;
+	}
+
+	public Map<String, Object> getMetricas() {
+		int[] actual = baneados;
+		Map<String, Object> metricas = new LinkedHashMap<>();
+		metricas.put("baneados", actual.length);
+		metricas.put("bytes", actual.length * Integer.BYTES);
+		return metricas;
+	}
+}
@@ -0,0 +1,101 @@
+package manyWorker.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import manyWorker.entity.Actor;
+import manyWorker.entity.ClaveApi;
+import manyWorker.repository.ClaveApiRepository;
+
+// Índice en memoria de las claves de API vigentes, por el SHA-256 de la clave. Resolver una clave
+// es un hash y una búsqueda en un mapa: sin BCrypt y sin BD. Los cambios de este nodo se aplican
+// al momento; los de otros nodos, en la siguiente recarga.
+@Component
+public class RegistroClavesApi {
+
+	public static final String CABECERA = "X-API-Key";
+
+	// Autoridad extra de las peticiones autenticadas con clave de API
+	public static final String AUTORIDAD = "CLAVE_API";
+
+	// Lo necesario para autenticar sin consultar la BD
+	public record Entrada(int id, ActorPrincipal principal, boolean soloLectura, long expiraEn) {
+	}
+
+	@Autowired
+	private ClaveApiRepository claveApiRepository;
+
+	private volatile Map<String, Entrada> indice = new ConcurrentHashMap<>();
+	// Cambios hechos en este nodo; si alguno llega durante una recarga, esa recarga se descarta
+	private long cambios;
+
+	private final LongAdder aciertos = new LongAdder();
+	private final LongAdder fallos = new LongAdder();
+
+	@PostConstruct
+	@Scheduled(fixedDelayString = "${manyworker.seguridad.claves-api.recarga-ms:60000}", initialDelayString = "${manyworker.seguridad.claves-api.recarga-ms:60000}")
+	public void cargar() {
+		long cambiosAntes;
+		synchronized (this) {
+			cambiosAntes = cambios;
+		}
+		Map<String, Entrada> nuevo = new ConcurrentHashMap<>();
+		for (ClaveApi clave : claveApiRepository.findNoRevocadasConActor()) {
+			nuevo.put(clave.getHash(), entrada(clave));
+		}
+		synchronized (this) {
+			if (cambios == cambiosAntes) {
+				indice = nuevo;
+			}
+		}
+	}
+
+	public Optional<Entrada> resolver(String clave) {
+		Entrada entrada = indice.get(JWTUtils.sha256(clave));
+		if (entrada == null || (entrada.expiraEn() > 0 && entrada.expiraEn() <= System.currentTimeMillis())) {
+			fallos.increment();
+			return Optional.empty();
+		}
+		aciertos.increment();
+		return Optional.of(entrada);
+	}
+
+	public synchronized void registrar(ClaveApi clave) {
+		indice.put(clave.getHash(), entrada(clave));
+		cambios++;
+	}
+
+	public synchronized void quitar(String hash) {
+		indice.remove(hash);
+		cambios++;
+	}
+
+	public synchronized void quitarDeActor(int idActor) {
+		indice.values().removeIf(e -> e.principal().getId() == idActor);
+		cambios++;
+	}
+
+	public Map<String, Object> getMetricas() {
+		Map<String, Object> metricas = new LinkedHashMap<>();
+		metricas.put("claves", indice.size());
+		metricas.put("aciertos", aciertos.sum());
+		metricas.put("fallos", fallos.sum());
+		return metricas;
+	}
+
+	private static Entrada entrada(ClaveApi clave) {
+		Actor actor = clave.getActor();
+		ActorPrincipal principal = new ActorPrincipal(actor.getId(), actor.getUsername(), actor.getRol(),
+				actor.getVersionSeguridad());
+		long expiraEn = clave.getExpiracion() == null ? 0 : clave.getExpiracion().getTime();
+		return new Entrada(clave.getId(), principal, clave.isSoloLectura(), expiraEn);
+	}
+}
@@ -0,0 +1,151 @@
+package manyWorker.security;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
+import manyWorker.entity.TokenRevocado;
+import manyWorker.repository.TokenRevocadoRepository;
+import manyWorker.service.CentralEventos;
+
+// Tokens de acceso revocados antes de caducar, identificados por su jti. La tabla es la fuente de verdad
+// y delante va un filtro de Bloom: el caso normal (token nunca revocado) se responde en memoria
+// y solo los posibles positivos llegan a la BD. Las revocaciones de otros nodos se incorporan
+// en cada sincronización, y el filtro se reconstruye al purgar los tokens ya caducados.
+@Component
+public class RegistroRevocaciones {
+
+	// Margen al pedir las revocaciones recientes, por si los relojes de los nodos no coinciden
+	private static final long MARGEN_SINCRONIZACION_MS = 5000;
+
+	@Autowired
+	private TokenRevocadoRepository tokenRevocadoRepository;
+
+	@Autowired
+	private CentralEventos centralEventos;
+
+	private final int capacidad;
+	private final double probabilidadFalsoPositivo;
+	// Revocaciones ya confirmadas en la BD, para no repetir la consulta si el token se sigue usando
+	private final CacheTTL<String, Boolean> confirmados;
+
+	private volatile FiltroBloom filtro;
+	private volatile Date ultimaSincronizacion = new Date(0);
+
+	private final LongAdder consultas = new LongAdder();
+	private final LongAdder consultasBD = new LongAdder();
+	private final LongAdder falsosPositivos = new LongAdder();
+	private final LongAdder rechazados = new LongAdder();
+
+	public RegistroRevocaciones(@Value("${manyworker.jwt.revocados.capacidad:100000}") int capacidad,
+			@Value("${manyworker.jwt.revocados.falsos-positivos:0.001}") double probabilidadFalsoPositivo,
+			@Value("${manyworker.jwt.duracion-acceso-segundos:900}") long duracionAccesoSegundos) {
+		this.capacidad = capacidad;
+		this.probabilidadFalsoPositivo = probabilidadFalsoPositivo;
+		this.confirmados = new CacheTTL<>(capacidad, duracionAccesoSegundos * 1000L);
+		this.filtro = new FiltroBloom(capacidad, probabilidadFalsoPositivo);
+	}
+
+	public boolean estaRevocado(Claims claims) {
+		String jti = claims.getId();
+		if (jti == null) {
+			return false;
+		}
+		consultas.increment();
+		if (!filtro.puedeContener(jti)) {
+			return false;
+		}
+		if (confirmados.get(jti) != null) {
+			rechazados.increment();
+			return true;
+		}
+		consultasBD.increment();
+		if (tokenRevocadoRepository.existsByJti(jti)) {
+			confirmar(jti, claims.getExpiration());
+			rechazados.increment();
+			return true;
+		}
+		falsosPositivos.increment();
+		return false;
+	}
+
+	// Revoca el token hasta su caducidad (logout)
+	public void revocar(Claims claims) {
+		String jti = claims.getId();
+		Date expiracion = claims.getExpiration();
+		if (jti == null || expiracion == null || expiracion.getTime() <= System.currentTimeMillis()) {
+			return;
+		}
+		if (!tokenRevocadoRepository.existsByJti(jti)) {
+			tokenRevocadoRepository.save(new TokenRevocado(jti, new Date(), expiracion));
+		}
+		filtro.agregar(jti);
+		confirmar(jti, expiracion);
+		// Los streams SSE abiertos con este token no vuelven a pasar por el filtro
+		centralEventos.cerrarConexionesToken(jti);
+	}
+
+	// Añade al filtro las revocaciones hechas desde la última vez, incluidas las de otros nodos
+	@Scheduled(fixedDelayString = "${manyworker.jwt.revocados.sincronizacion-ms:10000}", initialDelayString = "${manyworker.jwt.revocados.sincronizacion-ms:10000}")
+	public void sincronizar() {
+		Date ahora = new Date();
+		Date desde = new Date(ultimaSincronizacion.getTime() - MARGEN_SINCRONIZACION_MS);
+		FiltroBloom actual = filtro;
+		for (String jti : tokenRevocadoRepository.findJtisRevocadosDesde(desde)) {
+			actual.agregar(jti);
+		}
+		ultimaSincronizacion = ahora;
+	}
+
+	// Un filtro de Bloom no admite borrados: tras purgar la tabla se construye uno nuevo
+	// solo con los tokens que siguen vigentes
+	@PostConstruct
+	public void reconstruir() {
+		Date inicio = new Date();
+		List<String> vigentes = tokenRevocadoRepository.findJtisVigentes(inicio);
+		FiltroBloom nuevo = new FiltroBloom(Math.max(capacidad, vigentes.size() * 2), probabilidadFalsoPositivo);
+		for (String jti : vigentes) {
+			nuevo.agregar(jti);
+		}
+		filtro = nuevo;
+		// Lo revocado mientras se construía quedó en el filtro anterior: se recupera de la BD
+		ultimaSincronizacion = inicio;
+		sincronizar();
+	}
+
+	@Scheduled(fixedDelayString = "${manyworker.jwt.revocados.limpieza-ms:3600000}", initialDelayString = "${manyworker.jwt.revocados.limpieza-ms:3600000}")
+	@Transactional
+	public void purgar() {
+		tokenRevocadoRepository.borrarCaducados(new Date());
+		reconstruir();
+	}
+
+	public Map<String, Object> getMetricas() {
+		FiltroBloom actual = filtro;
+		Map<String, Object> metricas = new LinkedHashMap<>();
+		metricas.put("elementosFiltro", actual.getElementos());
+		metricas.put("bitsFiltro", actual.getNumBits());
+		metricas.put("hashesFiltro", actual.getNumHashes());
+		metricas.put("consultas", consultas.sum());
+		metricas.put("consultasBD", consultasBD.sum());
+		metricas.put("falsosPositivos", falsosPositivos.sum());
+		metricas.put("rechazados", rechazados.sum());
+		return metricas;
+	}
+
+	private void confirmar(String jti, Date expiracion) {
+		if (expiracion != null) {
+			confirmados.putHasta(jti, Boolean.TRUE, expiracion.getTime());
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package manyWorker.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import manyWorker.repository.ActorRepository;
+
+// Versión de seguridad vigente de cada actor, usada para revocar tokens sin consultar la BD en cada petición.
+// Un token solo es válido si su claim "sv" coincide con la versión actual del actor.
+// Los cambios hechos en este nodo se ven al instante; los de otros nodos, como mucho tras el TTL.
+// ActorService lo actualiza después del commit, para no rechazar tokens de una versión que no ha llegado a la BD.
+@Component
+public class RegistroVersionesSeguridad {
+
+	// Versión asignada a los actores que ya no existen: ningún token coincide con ella
+	private static final int REVOCADO = -1;
+
+	@Autowired
+	private ActorRepository actorRepository;
+
+	private final CacheTTL<Integer, Integer> versiones;
+
+	public RegistroVersionesSeguridad(@Value("${manyworker.seguridad.versiones.tamano:100000}") int tamano,
+			@Value("${manyworker.seguridad.versiones.ttl-segundos:60}") long ttlSegundos) {
+		this.versiones = new CacheTTL<>(tamano, ttlSegundos * 1000L);
+	}
+
+	public boolean esVigente(int idActor, int versionToken) {
+		Integer actual = versiones.get(idActor,
+				id -> actorRepository.findVersionSeguridadById(id).orElse(REVOCADO));
+		return actual != REVOCADO && actual == versionToken;
+	}
+
+	public void actualizar(int idActor, int version) {
+		versiones.put(idActor, version);
+	}
+
+	public void revocar(int idActor) {
+		versiones.put(idActor, REVOCADO);
+	}
+
+	public Map<String, Object> getMetricas() {
+		Map<String, Object> metricas = new LinkedHashMap<>();
+		metricas.put("entradas", versiones.size());
+		metricas.put("aciertos", versiones.getAciertos());
+		metricas.put("fallos", versiones.getFallos());
+		return metricas;
+	}
+}
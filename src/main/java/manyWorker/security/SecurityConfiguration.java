@@ -1,6 +1,7 @@
 package manyWorker.security;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -9,14 +10,14 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import jakarta.servlet.DispatcherType;
+
 import java.util.Arrays;
 import java.util.List;
 
@@ -32,97 +33,126 @@ public class SecurityConfiguration {
         return authConf.getAuthenticationManager();
     }
 
+    // BCrypt con coste configurable y ejecutado en un pool acotado (ver PasswordEncoderLimitado)
     @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    PasswordEncoderLimitado passwordEncoder(
+            @Value("${manyworker.seguridad.bcrypt.coste:10}") int coste,
+            @Value("${manyworker.seguridad.bcrypt.hilos:0}") int hilos,
+            @Value("${manyworker.seguridad.bcrypt.cola:200}") int cola,
+            @Value("${manyworker.seguridad.bcrypt.timeout-ms:10000}") long timeoutMs) {
+        if (hilos <= 0) {
+            // Por defecto, la mitad de los núcleos: el resto queda libre para las peticiones normales
+            hilos = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        }
+        return new PasswordEncoderLimitado(coste, hilos, cola, timeoutMs);
+    }
+
+    // --- REGLAS DE AUTORIZACIÓN ---
+    // Se compilan al arrancar en una tabla indexada por método y primer segmento de la ruta.
+    // Como en requestMatchers, gana la primera regla que encaja (ver TablaAutorizacion).
+    @Bean
+    public TablaAutorizacion tablaAutorizacion() {
+        return TablaAutorizacion.builder()
+            // Rutas públicas
+            .requestMatchers("/actor/login").permitAll()
+            .requestMatchers(HttpMethod.POST, "/actor/refresh").permitAll()
+            .requestMatchers(HttpMethod.POST, "/trabajador").permitAll()
+            .requestMatchers(HttpMethod.POST, "/cliente").permitAll()            
+
+            // Rutas ADMINISTRADOR
+            .requestMatchers("/admin/**").hasAuthority("ADMINISTRADOR")
+            .requestMatchers(HttpMethod.GET, "/trabajador").hasAuthority("ADMINISTRADOR")
+            .requestMatchers(HttpMethod.GET, "/cliente").hasAuthority("ADMINISTRADOR")
+            .requestMatchers(HttpMethod.PUT, "/banear/**").hasAuthority("ADMINISTRADOR")
+            .requestMatchers(HttpMethod.PUT, "/desbanear/**").hasAuthority("ADMINISTRADOR")
+
+            // Rutas TRABAJADOR
+            .requestMatchers("/trabajador/**").hasAuthority("TRABAJADOR")
+            .requestMatchers(HttpMethod.PUT, "/trabajador").hasAuthority("TRABAJADOR")
+            .requestMatchers(HttpMethod.DELETE, "/trabajador").hasAuthority("TRABAJADOR")
+
+            // Rutas CLIENTE
+            .requestMatchers("/cliente/**").hasAnyAuthority("CLIENTE", "ADMINISTRADOR")
+            .requestMatchers(HttpMethod.PUT, "/cliente").hasAuthority("CLIENTE")
+            .requestMatchers(HttpMethod.DELETE, "/cliente").hasAuthority("CLIENTE")
+            .requestMatchers("/cliente/miPerfil").hasAuthority("CLIENTE")
+
+            // Claves de API para integraciones
+            .requestMatchers("/claves-api/**").hasAnyAuthority("CLIENTE", "TRABAJADOR")
+
+            // Endpoints compartidos
+            .requestMatchers("/perfilSocial/**").hasAnyAuthority("CLIENTE", "TRABAJADOR")
+            
+            // Endpoints Solicitud
+            .requestMatchers(HttpMethod.GET, "/solicitudes/tarea/**").hasAuthority("CLIENTE")
+            .requestMatchers(HttpMethod.POST, "/solicitudes").hasAnyAuthority("CLIENTE", "TRABAJADOR")
+            .requestMatchers(HttpMethod.GET, "/solicitudes").hasAnyAuthority("CLIENTE", "TRABAJADOR")
+            .requestMatchers(HttpMethod.GET, "/solicitudes/{id}").hasAnyAuthority("CLIENTE", "TRABAJADOR")
+            .requestMatchers(HttpMethod.PUT, "/solicitudes/{id}").hasAnyAuthority("CLIENTE", "TRABAJADOR")
+            .requestMatchers(HttpMethod.DELETE, "/solicitudes/{id}").hasAnyAuthority("ADMINISTRADOR", "TRABAJADOR")
+            .requestMatchers("/solicitudes/*/asignar").hasAuthority("TRABAJADOR")
+            .requestMatchers("/solicitudes/*/finalizar").hasAuthority("TRABAJADOR")
+            .requestMatchers("/solicitudes/*/comenzar").hasAuthority("TRABAJADOR")
+            
+            // Operaciones específicas de cliente
+            .requestMatchers("/solicitudes/*/aceptar").hasAuthority("CLIENTE")
+            .requestMatchers("/solicitudes/*/rechazar").hasAuthority("CLIENTE")
+            .requestMatchers("/solicitudes/*/cancelar").hasAuthority("CLIENTE")
+            .requestMatchers("/solicitudes/*/valorar").hasAuthority("CLIENTE")
+
+            
+            // Rutas MENSAJE
+            .requestMatchers(HttpMethod.POST, "/mensajes/enviar").hasAnyAuthority("CLIENTE", "TRABAJADOR", "ADMINISTRADOR")
+            .requestMatchers(HttpMethod.GET, "/mensajes/broadcast/**").hasAuthority("ADMINISTRADOR")
+            .requestMatchers(HttpMethod.GET, "/mensajes/**").hasAnyAuthority("CLIENTE", "TRABAJADOR", "ADMINISTRADOR")
+            .requestMatchers(HttpMethod.PUT, "/mensajes/**").hasAnyAuthority("CLIENTE", "TRABAJADOR", "ADMINISTRADOR")
+            .requestMatchers(HttpMethod.DELETE, "/mensajes/broadcast/**").hasAuthority("ADMINISTRADOR")
+            .requestMatchers(HttpMethod.DELETE, "/mensajes/**").hasAnyAuthority("CLIENTE", "TRABAJADOR", "ADMINISTRADOR")
+            .requestMatchers(HttpMethod.POST, "/mensajes/broadcast").hasAuthority("ADMINISTRADOR")
+            .requestMatchers(HttpMethod.GET, "/mensajes").hasAuthority("ADMINISTRADOR")
+            
+            // Rutas TUTORIALES
+            .requestMatchers(HttpMethod.GET, "/tutoriales/**").permitAll() 
+            .requestMatchers(HttpMethod.POST, "/tutoriales").hasAuthority("TRABAJADOR")
+            .requestMatchers(HttpMethod.PUT, "/tutoriales/**").hasAuthority("TRABAJADOR")
+            .requestMatchers(HttpMethod.DELETE, "/tutoriales/**").hasAnyAuthority("TRABAJADOR", "ADMINISTRADOR")
+            
+            // Rutas PERFIL SOCIAL
+            .requestMatchers(HttpMethod.POST, "/perfilSocial").hasAnyAuthority("CLIENTE", "TRABAJADOR")
+            .requestMatchers(HttpMethod.PUT, "/perfilSocial/**").hasAnyAuthority("CLIENTE", "TRABAJADOR")
+            .requestMatchers(HttpMethod.DELETE, "/perfilSocial/**").hasAnyAuthority("CLIENTE", "TRABAJADOR")
+            .requestMatchers(HttpMethod.GET, "/perfilSocial").hasAuthority("ADMINISTRADOR")
+            .requestMatchers(HttpMethod.GET, "/perfilSocial/**").hasAuthority("ADMINISTRADOR")
+            
+            // Endpoints de Categoría
+            .requestMatchers(HttpMethod.GET, "/categorias/**").permitAll()
+            .requestMatchers("/categorias/**").hasAuthority("ADMINISTRADOR")
+            
+            // Reglas para Tarea
+            .requestMatchers("/tareas/**").hasAnyAuthority("CLIENTE", "TRABAJADOR")
+            
+            // Rutas SWAGGER
+            .requestMatchers("/v3/api-docs/**").permitAll()
+            .requestMatchers("/swagger-ui.html", "/swagger-ui/**").permitAll()
+            
+            // Resto de rutas requieren autenticación
+            .anyRequest().authenticated()
+            .build();
     }
 
     // --- CONFIGURACIÓN DE SEGURIDAD HTTP ---
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, TablaAutorizacion tablaAutorizacion) throws Exception {
         http
             // 1. ACTIVAR CORS (Esto usa el Bean corsConfigurationSource definido abajo)
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
-                // Rutas públicas
-                .requestMatchers("/actor/login").permitAll()
-                .requestMatchers(HttpMethod.POST, "/trabajador").permitAll()
-                .requestMatchers(HttpMethod.POST, "/cliente").permitAll()                
-
-                // Rutas ADMINISTRADOR
-                .requestMatchers("/admin/**").hasAuthority("ADMINISTRADOR")
-                .requestMatchers(HttpMethod.GET, "/trabajador").hasAuthority("ADMINISTRADOR")
-                .requestMatchers(HttpMethod.GET, "/cliente").hasAuthority("ADMINISTRADOR")
-                .requestMatchers(HttpMethod.PUT, "/banear/**").hasAuthority("ADMINISTRADOR")
-                .requestMatchers(HttpMethod.PUT, "/desbanear/**").hasAuthority("ADMINISTRADOR")
-
-                // Rutas TRABAJADOR
-                .requestMatchers("/trabajador/**").hasAuthority("TRABAJADOR")
-                .requestMatchers(HttpMethod.PUT, "/trabajador").hasAuthority("TRABAJADOR")
-                .requestMatchers(HttpMethod.DELETE, "/trabajador").hasAuthority("TRABAJADOR")
-
-                // Rutas CLIENTE
-                .requestMatchers("/cliente/**").hasAnyAuthority("CLIENTE", "ADMINISTRADOR")
-                .requestMatchers(HttpMethod.PUT, "/cliente").hasAuthority("CLIENTE")
-                .requestMatchers(HttpMethod.DELETE, "/cliente").hasAuthority("CLIENTE")
-                .requestMatchers("/cliente/miPerfil").hasAuthority("CLIENTE")
-
-                // Endpoints compartidos
-                .requestMatchers("/perfilSocial/**").hasAnyAuthority("CLIENTE", "TRABAJADOR")
-                
-                // Endpoints Solicitud
-                .requestMatchers(HttpMethod.GET, "/solicitudes/tarea/**").hasAuthority("CLIENTE")
-                .requestMatchers(HttpMethod.POST, "/solicitudes").hasAnyAuthority("CLIENTE", "TRABAJADOR")
-                .requestMatchers(HttpMethod.GET, "/solicitudes").hasAnyAuthority("CLIENTE", "TRABAJADOR")
-                .requestMatchers(HttpMethod.GET, "/solicitudes/{id}").hasAnyAuthority("CLIENTE", "TRABAJADOR")
-                .requestMatchers(HttpMethod.PUT, "/solicitudes/{id}").hasAnyAuthority("CLIENTE", "TRABAJADOR")
-                .requestMatchers(HttpMethod.DELETE, "/solicitudes/{id}").hasAnyAuthority("ADMINISTRADOR", "TRABAJADOR")
-                .requestMatchers("/solicitudes/*/asignar").hasAuthority("TRABAJADOR")
-                .requestMatchers("/solicitudes/*/finalizar").hasAuthority("TRABAJADOR")
-                .requestMatchers("/solicitudes/*/comenzar").hasAuthority("TRABAJADOR")
-                
-                // Operaciones específicas de cliente
-                .requestMatchers("/solicitudes/*/aceptar").hasAuthority("CLIENTE")
-                .requestMatchers("/solicitudes/*/rechazar").hasAuthority("CLIENTE")
-                .requestMatchers("/solicitudes/*/cancelar").hasAuthority("CLIENTE")
-                .requestMatchers("/solicitudes/*/valorar").hasAuthority("CLIENTE")
-
-                
-                // Rutas MENSAJE
-                .requestMatchers(HttpMethod.POST, "/mensajes/enviar").hasAnyAuthority("CLIENTE", "TRABAJADOR", "ADMINISTRADOR")
-                .requestMatchers(HttpMethod.GET, "/mensajes/**").hasAnyAuthority("CLIENTE", "TRABAJADOR", "ADMINISTRADOR")
-                .requestMatchers(HttpMethod.DELETE, "/mensajes/**").hasAnyAuthority("CLIENTE", "TRABAJADOR", "ADMINISTRADOR")
-                .requestMatchers(HttpMethod.POST, "/mensajes/broadcast").hasAuthority("ADMINISTRADOR")
-                .requestMatchers(HttpMethod.GET, "/mensajes").hasAuthority("ADMINISTRADOR")
-                
-                // Rutas TUTORIALES
-                .requestMatchers(HttpMethod.GET, "/tutoriales/**").permitAll() 
-                .requestMatchers(HttpMethod.POST, "/tutoriales").hasAuthority("TRABAJADOR")
-                .requestMatchers(HttpMethod.PUT, "/tutoriales/**").hasAuthority("TRABAJADOR")
-                .requestMatchers(HttpMethod.DELETE, "/tutoriales/**").hasAnyAuthority("TRABAJADOR", "ADMINISTRADOR")
-                
-                // Rutas PERFIL SOCIAL
-                .requestMatchers(HttpMethod.POST, "/perfilSocial").hasAnyAuthority("CLIENTE", "TRABAJADOR")
-                .requestMatchers(HttpMethod.PUT, "/perfilSocial/**").hasAnyAuthority("CLIENTE", "TRABAJADOR")
-                .requestMatchers(HttpMethod.DELETE, "/perfilSocial/**").hasAnyAuthority("CLIENTE", "TRABAJADOR")
-                .requestMatchers(HttpMethod.GET, "/perfilSocial").hasAuthority("ADMINISTRADOR")
-                .requestMatchers(HttpMethod.GET, "/perfilSocial/**").hasAuthority("ADMINISTRADOR")
-                
-                // Endpoints de Categoría
-                .requestMatchers(HttpMethod.GET, "/categorias/**").permitAll()
-                .requestMatchers("/categorias/**").hasAuthority("ADMINISTRADOR")
-                
-                // Reglas para Tarea
-                .requestMatchers("/tareas/**").hasAnyAuthority("CLIENTE", "TRABAJADOR")
-                
-                // Rutas SWAGGER
-                .requestMatchers("/v3/api-docs/**").permitAll()
-                .requestMatchers("/swagger-ui.html", "/swagger-ui/**").permitAll()
-                
-                // Resto de rutas requieren autenticación
-                .anyRequest().authenticated())
+                // Los eventos SSE (/mensajes/eventos) se autorizan al abrir la conexión; los despachos
+                // asíncronos posteriores de esa misma petición no vuelven a pasar por el filtro JWT
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                .anyRequest().access(tablaAutorizacion))
                 
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .addFilterBefore(JWTAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
@@ -140,7 +170,7 @@ public class SecurityConfiguration {
         configuration.setAllowedOriginPatterns(List.of("*")); 
         
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With", "Accept", "Origin", "Access-Control-Request-Method", "Access-Control-Request-Headers"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With", "Accept", "Origin", "Access-Control-Request-Method", "Access-Control-Request-Headers", "X-API-Key"));
         configuration.setExposedHeaders(Arrays.asList("Authorization"));
         configuration.setAllowCredentials(true);
         
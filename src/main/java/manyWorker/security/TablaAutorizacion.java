@@ -0,0 +1,410 @@
+package manyWorker.security;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.RequestPath;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.web.util.ServletRequestPathUtils;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+// Tabla de autorización de rutas compilada al arrancar. Las reglas se declaran igual que en
+// requestMatchers (y se respeta que gana la primera que encaja), pero en vez de recorrerlas todas
+// en cada petición se indexan por método HTTP y primer segmento de la ruta: cada petición solo
+// prueba las pocas reglas de su casilla. Al construirla se avisa de las reglas que nunca se aplican.
+public class TablaAutorizacion implements AuthorizationManager<RequestAuthorizationContext> {
+
+	private static final Logger log = LoggerFactory.getLogger(TablaAutorizacion.class);
+
+	private static final List<String> METODOS = List.of("GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "TRACE");
+
+	// Casilla de las reglas cuyo primer segmento es variable ({id}, *, **)
+	private static final String COMODIN = "*";
+
+	private static final AuthorizationDecision CONCEDIDO = new AuthorizationDecision(true);
+	private static final AuthorizationDecision DENEGADO = new AuthorizationDecision(false);
+
+	public enum TipoAcceso {
+		PERMITIR, AUTENTICADO, AUTORIDADES
+	}
+
+	// Una regla tal como se declaró: método (null = cualquiera), patrón y acceso exigido
+	public static final class Regla {
+		private final int orden;
+		private final String metodo;
+		private final String patron;
+		private final PathPattern pathPattern;
+		private final TipoAcceso tipo;
+		private final Set<String> autoridades;
+
+		private Regla(int orden, String metodo, String patron, TipoAcceso tipo, Set<String> autoridades) {
+			this.orden = orden;
+			this.metodo = metodo;
+			this.patron = patron;
+			this.pathPattern = PathPatternParser.defaultInstance.parse(patron);
+			this.tipo = tipo;
+			this.autoridades = autoridades;
+		}
+
+		public int getOrden() {
+			return orden;
+		}
+
+		public String getMetodo() {
+			return metodo;
+		}
+
+		public String getPatron() {
+			return patron;
+		}
+
+		public TipoAcceso getTipo() {
+			return tipo;
+		}
+
+		public Set<String> getAutoridades() {
+			return autoridades;
+		}
+
+		private boolean encaja(PathContainer ruta) {
+			return pathPattern.matches(ruta);
+		}
+
+		private boolean mismoAcceso(Regla otra) {
+			return tipo == otra.tipo && autoridades.equals(otra.autoridades);
+		}
+
+		private AuthorizationDecision decidir(Supplier<Authentication> authentication) {
+			switch (tipo) {
+			case PERMITIR:
+				return CONCEDIDO;
+			case AUTENTICADO:
+				return autenticado(authentication.get()) ? CONCEDIDO : DENEGADO;
+			default:
+				Authentication auth = authentication.get();
+				if (!autenticado(auth)) {
+					return DENEGADO;
+				}
+				for (GrantedAuthority autoridad : auth.getAuthorities()) {
+					if (autoridades.contains(autoridad.getAuthority())) {
+						return CONCEDIDO;
+					}
+				}
+				return DENEGADO;
+			}
+		}
+
+		private static boolean autenticado(Authentication auth) {
+			return auth != null && auth.isAuthenticated() && !(auth instanceof AnonymousAuthenticationToken);
+		}
+
+		private String acceso() {
+			switch (tipo) {
+			case PERMITIR:
+				return "permitAll";
+			case AUTENTICADO:
+				return "authenticated";
+			default:
+				return "hasAnyAuthority" + autoridades;
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "#" + orden + " " + (metodo == null ? "" : metodo + " ") + patron + " -> " + acceso();
+		}
+	}
+
+	private final List<Regla> reglas;
+	private final Regla porDefecto;
+	// método -> primer segmento -> reglas candidatas en su orden original
+	private final Map<String, Map<String, Regla[]>> indice;
+	// Para métodos no estándar: solo las reglas sin método
+	private final Map<String, Regla[]> indiceSinMetodo;
+	private final List<String> avisos;
+
+	private TablaAutorizacion(List<Regla> reglas, Regla porDefecto) {
+		this.reglas = Collections.unmodifiableList(reglas);
+		this.porDefecto = porDefecto;
+		this.indice = new HashMap<>();
+		for (String metodo : METODOS) {
+			indice.put(metodo, indexar(metodo));
+		}
+		this.indiceSinMetodo = indexar(null);
+		this.avisos = Collections.unmodifiableList(analizar());
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	@Override
+	public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext contexto) {
+		return buscar(contexto.getRequest()).decidir(authentication);
+	}
+
+	// Regla que se aplica a la petición (la primera que encaja, o la de por defecto)
+	// La ruta se toma ya decodificada y sin ";parametros", igual que la ven requestMatchers y Spring MVC:
+	// con la URI en bruto "/%61dmin/..." caería en otra casilla que "/admin/...".
+	public Regla buscar(HttpServletRequest request) {
+		RequestPath rutaPeticion = ServletRequestPathUtils.hasParsedRequestPath(request)
+				? ServletRequestPathUtils.getParsedRequestPath(request)
+				: ServletRequestPathUtils.parseAndCache(request);
+		PathContainer camino = rutaPeticion.pathWithinApplication();
+		Map<String, Regla[]> porSegmento = indice.getOrDefault(request.getMethod(), indiceSinMetodo);
+		Regla[] candidatas = porSegmento.get(primerSegmento(camino));
+		if (candidatas == null) {
+			candidatas = porSegmento.get(COMODIN);
+		}
+		if (candidatas.length > 0) {
+			for (Regla regla : candidatas) {
+				if (regla.encaja(camino)) {
+					return regla;
+				}
+			}
+		}
+		return porDefecto;
+	}
+
+	public List<Regla> getReglas() {
+		return reglas;
+	}
+
+	public Regla getPorDefecto() {
+		return porDefecto;
+	}
+
+	public List<String> getAvisos() {
+		return avisos;
+	}
+
+	public Map<String, Object> getMetricas() {
+		int casillas = 0;
+		int maxCandidatas = 0;
+		for (Map<String, Regla[]> porSegmento : indice.values()) {
+			casillas += porSegmento.size();
+			for (Regla[] candidatas : porSegmento.values()) {
+				maxCandidatas = Math.max(maxCandidatas, candidatas.length);
+			}
+		}
+		Map<String, Object> metricas = new LinkedHashMap<>();
+		metricas.put("reglas", reglas.size());
+		metricas.put("casillas", casillas);
+		metricas.put("maxReglasPorCasilla", maxCandidatas);
+		metricas.put("avisos", avisos);
+		return metricas;
+	}
+
+	// Agrupa por primer segmento las reglas aplicables al método. Las de primer segmento variable
+	// se copian en todas las casillas para no romper el orden de evaluación.
+	private Map<String, Regla[]> indexar(String metodo) {
+		List<Regla> aplicables = new ArrayList<>();
+		Set<String> segmentos = new LinkedHashSet<>();
+		for (Regla regla : reglas) {
+			if (regla.metodo == null || regla.metodo.equals(metodo)) {
+				aplicables.add(regla);
+				String segmento = segmentoLiteral(regla.patron);
+				if (segmento != null) {
+					segmentos.add(segmento);
+				}
+			}
+		}
+		Map<String, Regla[]> resultado = new HashMap<>();
+		for (String segmento : segmentos) {
+			List<Regla> candidatas = new ArrayList<>();
+			for (Regla regla : aplicables) {
+				String literal = segmentoLiteral(regla.patron);
+				if (literal == null || literal.equals(segmento)) {
+					candidatas.add(regla);
+				}
+			}
+			resultado.put(segmento, candidatas.toArray(new Regla[0]));
+		}
+		List<Regla> comodines = new ArrayList<>();
+		for (Regla regla : aplicables) {
+			if (segmentoLiteral(regla.patron) == null) {
+				comodines.add(regla);
+			}
+		}
+		resultado.put(COMODIN, comodines.toArray(new Regla[0]));
+		return resultado;
+	}
+
+	// Busca reglas que nunca llegan a aplicarse porque otra anterior cubre todas sus rutas
+	private List<String> analizar() {
+		List<String> encontrados = new ArrayList<>();
+		for (int j = 0; j < reglas.size(); j++) {
+			Regla tapada = reglas.get(j);
+			for (int i = 0; i < j; i++) {
+				Regla anterior = reglas.get(i);
+				if (cubreMetodo(anterior, tapada) && cubreRutas(anterior, tapada)) {
+					String aviso;
+					if (anterior.mismoAcceso(tapada)) {
+						aviso = "Regla redundante " + tapada + ": ya la cubre " + anterior;
+						log.info(aviso);
+					} else {
+						aviso = "Regla en conflicto " + tapada + ": nunca se aplica porque antes va " + anterior;
+						log.warn(aviso);
+					}
+					encontrados.add(aviso);
+					break;
+				}
+			}
+		}
+		return encontrados;
+	}
+
+	private static boolean cubreMetodo(Regla anterior, Regla tapada) {
+		return anterior.metodo == null || anterior.metodo.equals(tapada.metodo);
+	}
+
+	// Se prueba la regla anterior contra rutas de ejemplo que representan todas las de la tapada
+	private static boolean cubreRutas(Regla anterior, Regla tapada) {
+		for (String ejemplo : ejemplos(tapada.patron)) {
+			if (!anterior.encaja(PathContainer.parsePath(ejemplo))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Rutas concretas a partir de un patrón: variables y * se sustituyen por un valor cualquiera
+	// y ** se prueba tanto vacío como con varios segmentos
+	private static List<String> ejemplos(String patron) {
+		List<String> segmentos = new ArrayList<>(Arrays.asList(patron.split("/")));
+		List<String> sinMultiple = new ArrayList<>();
+		List<String> conMultiple = new ArrayList<>();
+		for (String segmento : segmentos) {
+			if (segmento.equals("**") || segmento.startsWith("{*")) {
+				conMultiple.add("x/y");
+			} else {
+				String concreto = segmento.replaceAll("\\{[^}]*\\}", "x").replace("*", "x");
+				sinMultiple.add(concreto);
+				conMultiple.add(concreto);
+			}
+		}
+		Set<String> ejemplos = new LinkedHashSet<>();
+		ejemplos.add(unir(sinMultiple));
+		ejemplos.add(unir(conMultiple));
+		return new ArrayList<>(ejemplos);
+	}
+
+	private static String unir(List<String> segmentos) {
+		String ruta = String.join("/", segmentos);
+		return ruta.startsWith("/") ? ruta : "/" + ruta;
+	}
+
+	private static String primerSegmento(String ruta) {
+		int inicio = ruta.startsWith("/") ? 1 : 0;
+		int fin = ruta.indexOf('/', inicio);
+		return fin < 0 ? ruta.substring(inicio) : ruta.substring(inicio, fin);
+	}
+
+	private static String primerSegmento(PathContainer ruta) {
+		for (PathContainer.Element elemento : ruta.elements()) {
+			if (elemento instanceof PathContainer.PathSegment segmento) {
+				return segmento.valueToMatch();
+			}
+		}
+		return "";
+	}
+
+	// Primer segmento del patrón si es literal, o null si depende de la petición
+	private static String segmentoLiteral(String patron) {
+		String segmento = primerSegmento(patron);
+		if (segmento.isEmpty() && patron.length() > 1) {
+			return null;
+		}
+		return segmento.contains("*") || segmento.contains("{") || segmento.contains("?") ? null : segmento;
+	}
+
+	// Declaración de reglas con la misma forma que authorizeHttpRequests
+	public static final class Builder {
+		private final List<Regla> reglas = new ArrayList<>();
+		private Regla porDefecto;
+
+		private Builder() {
+		}
+
+		public Destino requestMatchers(String... patrones) {
+			return new Destino(this, null, patrones);
+		}
+
+		public Destino requestMatchers(HttpMethod metodo, String... patrones) {
+			return new Destino(this, metodo.name(), patrones);
+		}
+
+		public Destino anyRequest() {
+			return new Destino(this, null, null);
+		}
+
+		public TablaAutorizacion build() {
+			if (porDefecto == null) {
+				porDefecto = new Regla(reglas.size() + 1, null, "/**", TipoAcceso.AUTENTICADO, Set.of());
+			}
+			return new TablaAutorizacion(new ArrayList<>(reglas), porDefecto);
+		}
+
+		private Builder agregar(String metodo, String[] patrones, TipoAcceso tipo, Set<String> autoridades) {
+			if (porDefecto != null) {
+				throw new IllegalStateException("No se pueden agregar reglas después de anyRequest()");
+			}
+			if (patrones == null) {
+				porDefecto = new Regla(reglas.size() + 1, null, "/**", tipo, autoridades);
+			} else {
+				for (String patron : patrones) {
+					reglas.add(new Regla(reglas.size() + 1, metodo, patron, tipo, autoridades));
+				}
+			}
+			return this;
+		}
+	}
+
+	public static final class Destino {
+		private final Builder builder;
+		private final String metodo;
+		private final String[] patrones;
+
+		private Destino(Builder builder, String metodo, String[] patrones) {
+			this.builder = builder;
+			this.metodo = metodo;
+			this.patrones = patrones;
+		}
+
+		public Builder permitAll() {
+			return builder.agregar(metodo, patrones, TipoAcceso.PERMITIR, Set.of());
+		}
+
+		public Builder authenticated() {
+			return builder.agregar(metodo, patrones, TipoAcceso.AUTENTICADO, Set.of());
+		}
+
+		public Builder hasAuthority(String autoridad) {
+			return hasAnyAuthority(autoridad);
+		}
+
+		public Builder hasAnyAuthority(String... autoridades) {
+			return builder.agregar(metodo, patrones, TipoAcceso.AUTORIDADES, Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(autoridades))));
+		}
+	}
+}
@@ -1,40 +1,156 @@
 package manyWorker.service;
 
-import java.util.HashSet;
 import java.util.Optional;
-import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import jakarta.transaction.Transactional;
 import manyWorker.entity.Actor;
 import manyWorker.repository.ActorRepository;
+import manyWorker.security.ActorPrincipal;
+import manyWorker.security.CachePrincipales;
+import manyWorker.security.RegistroBaneos;
+import manyWorker.security.RegistroClavesApi;
+import manyWorker.security.RegistroVersionesSeguridad;
 
 @Service
-public class ActorService implements UserDetailsService {
+public class ActorService implements UserDetailsService, UserDetailsPasswordService {
 	@Autowired
 	private ActorRepository actorRepository;
 	
+	@Autowired
+	private CachePrincipales cachePrincipales;
+	
+	@Autowired
+	private RegistroVersionesSeguridad registroVersiones;
+	
+	@Autowired
+	private RegistroBaneos registroBaneos;
+	
+	@Autowired
+	private RegistroClavesApi registroClavesApi;
+	
+	@Autowired
+	private TokenRefrescoService tokenRefrescoService;
+	
+	@Autowired
+	private CentralEventos centralEventos;
+	
 	@Override
 	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 		Optional<Actor> actorO = this.findByUsername(username);
 		if (actorO.isPresent()) {
-			Set<GrantedAuthority> authorities = new HashSet<GrantedAuthority>();
-			authorities.add(new SimpleGrantedAuthority(actorO.get().getRol().toString()));
-			User user = new User(actorO.get().getUsername(), actorO.get().getPassword(), authorities);
-			return user;
+			return new ActorPrincipal(actorO.get());
 		} else {
 			throw new UsernameNotFoundException("Username no encontrado");
 		}
 	}
 	
+	// Spring Security lo llama tras un login correcto cuando el hash guardado usa un coste BCrypt
+	// menor que el configurado: se guarda el nuevo hash sin que el usuario note nada.
+	// La contraseña es la misma, así que no se revocan las sesiones.
+	@Override
+	@Transactional
+	public UserDetails updatePassword(UserDetails user, String newPassword) {
+		Optional<Actor> actorO = this.findByUsername(user.getUsername());
+		if (actorO.isEmpty()) {
+			return user;
+		}
+		Actor actor = actorO.get();
+		actor.setPassword(newPassword);
+		actorRepository.save(actor);
+		cachePrincipales.invalidar(actor.getUsername());
+		return new ActorPrincipal(actor);
+	}
+	
 	public Optional<Actor> findByUsername(String username) {
 		return actorRepository.findByUsername(username);
 	}
+	
+	// Los datos del actor han cambiado: el próximo acceso debe recargar el principal
+	public void invalidarCache(Actor actor) {
+		cachePrincipales.invalidar(actor.getUsername());
+	}
+	
+	// Invalida todos los tokens emitidos hasta ahora para el actor (baneo, cambio de contraseña...)
+	// y cierra sus streams SSE en todos los nodos
+	@Transactional
+	public void revocarSesiones(Actor actor) {
+		// Sobre la entidad y no con un UPDATE masivo: con TABLE_PER_CLASS Hibernate lo lanzaría también
+		// contra domain_entity, que no tiene la columna. @Version evita perder un incremento concurrente.
+		Actor gestionado = actorRepository.findById(actor.getId()).orElseThrow();
+		int nuevaVersion = gestionado.getVersionSeguridad() + 1;
+		gestionado.setVersionSeguridad(nuevaVersion);
+		actor.setVersionSeguridad(nuevaVersion);
+		tokenRefrescoService.revocarTodos(actor.getId());
+		// La versión en memoria y la caché cambian solo si la nueva versión llega a la BD: con un rollback
+		// el nodo rechazaría hasta el TTL los tokens que se emitan con la versión que sigue vigente
+		int idActor = actor.getId();
+		String username = actor.getUsername();
+		trasCommit(() -> {
+			registroVersiones.actualizar(idActor, nuevaVersion);
+			cachePrincipales.invalidar(username);
+		});
+		centralEventos.cerrarConexiones(idActor);
+	}
+	
+	public Optional<Actor> findById(int id) {
+		return actorRepository.findById(id);
+	}
+	
+	// Marca al actor como baneado y corta todas sus sesiones abiertas (y sus streams, en revocarSesiones).
+	// El registro de baneos cambia al confirmar: con un rollback el nodo no debe banear a quien la BD no banea.
+	@Transactional
+	public Actor banear(Actor actor) {
+		actor.setBaneado(true);
+		Actor baneado = actorRepository.save(actor);
+		revocarSesiones(baneado);
+		int idActor = baneado.getId();
+		trasCommit(() -> registroBaneos.banear(idActor));
+		return baneado;
+	}
+	
+	@Transactional
+	public Actor desbanear(Actor actor) {
+		actor.setBaneado(false);
+		Actor desbaneado = actorRepository.save(actor);
+		int idActor = desbaneado.getId();
+		String username = desbaneado.getUsername();
+		trasCommit(() -> {
+			registroBaneos.desbanear(idActor);
+			cachePrincipales.invalidar(username);
+		});
+		return desbaneado;
+	}
+	
+	// El actor se ha borrado: sus tokens dejan de ser válidos inmediatamente
+	public void actorEliminado(Actor actor) {
+		registroVersiones.revocar(actor.getId());
+		registroClavesApi.quitarDeActor(actor.getId());
+		cachePrincipales.invalidar(actor.getUsername());
+		centralEventos.cerrarConexiones(actor.getId());
+	}
+	
+	// Los registros en memoria se tocan al confirmar la transacción (o ya, si no hay ninguna).
+	// CentralEventos y BusEventos aplazan lo suyo por su cuenta: no se les llama desde aquí, porque
+	// lo que se registra durante un afterCommit ya no se ejecuta.
+	private static void trasCommit(Runnable accion) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					accion.run();
+				}
+			});
+		} else {
+			accion.run();
+		}
+	}
 }
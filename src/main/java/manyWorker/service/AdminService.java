@@ -20,6 +20,9 @@ public class AdminService {
 	@Autowired
     private PasswordEncoder passwordEncoder;
 
+	@Autowired
+	private ActorService actorService;
+
 	public Optional<Admin> findById(int id) {
 		return this.adminRepository.findById(id);
 	}
@@ -52,13 +55,17 @@ public class AdminService {
 			a.setTelefono(admin.getTelefono());
 			a.setDireccion(admin.getDireccion());
 			// NO llamamos a save() porque reencriptaría el password
-			return this.adminRepository.save(a);
+			Admin actualizado = this.adminRepository.save(a);
+			actorService.invalidarCache(actualizado);
+			return actualizado;
 		}
 		return null;
 	}
 
 	public void delete(int id) {
+		Optional<Admin> eliminado = this.adminRepository.findById(id);
 		this.adminRepository.deleteById(id);
+		eliminado.ifPresent(actorService::actorEliminado);
 	}
 	
 	public boolean existsById(int id) {
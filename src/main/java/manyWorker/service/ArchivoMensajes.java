@@ -0,0 +1,176 @@
+package manyWorker.service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import manyWorker.repository.MensajeArchivadoRepository;
+import manyWorker.repository.MensajeRepository;
+
+// Archivado de mensajes antiguos: mueve los mensajes leídos con más de "edad-dias" a mensaje_archivado
+// (particionada por mes) para que la tabla de mensajes, y con ella las bandejas, no crezca sin límite.
+// Va por lotes pequeños con pausa entre ellos y en un hilo propio, para no competir con las peticiones
+// ni ocupar el hilo de las demás tareas programadas. Los sin leer se quedan: cuentan en los contadores.
+// MensajeService sigue leyendo en el archivo cuando una página llega más atrás del "horizonte".
+@Component
+public class ArchivoMensajes {
+
+	private static final Logger log = LoggerFactory.getLogger(ArchivoMensajes.class);
+
+	@Autowired
+	private MensajeRepository mensajeRepository;
+
+	@Autowired
+	private MensajeArchivadoRepository mensajeArchivadoRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Value("${manyworker.mensajes.archivo.activo:true}")
+	private boolean activo;
+
+	@Value("${manyworker.mensajes.archivo.edad-dias:180}")
+	private int edadDias;
+
+	@Value("${manyworker.mensajes.archivo.lote:1000}")
+	private int lote;
+
+	@Value("${manyworker.mensajes.archivo.pausa-ms:200}")
+	private long pausaMs;
+
+	@Value("${manyworker.mensajes.archivo.duracion-maxima-ms:1800000}")
+	private long duracionMaximaMs;
+
+	private final ExecutorService hilo = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "archivo-mensajes");
+		t.setDaemon(true);
+		return t;
+	});
+	private final AtomicBoolean enCurso = new AtomicBoolean();
+
+	// Fecha del mensaje archivado más reciente (null = sin consultar todavía o archivo vacío)
+	private volatile Date masRecienteArchivado;
+	private volatile boolean horizonteCargado;
+
+	private final AtomicLong archivados = new AtomicLong();
+	private final AtomicLong lotes = new AtomicLong();
+	private final AtomicLong errores = new AtomicLong();
+	private volatile Date ultimaEjecucion;
+
+	@Scheduled(cron = "${manyworker.mensajes.archivo.cron:0 0 3 * * *}")
+	public void programar() {
+		if (activo && enCurso.compareAndSet(false, true)) {
+			hilo.execute(() -> {
+				try {
+					archivar();
+				} finally {
+					enCurso.set(false);
+				}
+			});
+		}
+	}
+
+	// Un mes cada vez, empezando por el más antiguo: así cada lote cae entero en una partición,
+	// que se crea justo antes. Se para al acabar, al agotar el tiempo o si otro nodo tiene el resto.
+	void archivar() {
+		long fin = System.currentTimeMillis() + duracionMaximaMs;
+		Date corte = corte();
+		try {
+			while (System.currentTimeMillis() < fin) {
+				Date masAntigua = mensajeRepository.findFechaMasAntiguaArchivable(corte);
+				if (masAntigua == null) {
+					break;
+				}
+				YearMonth mes = YearMonth.from(masAntigua.toInstant().atZone(ZoneId.systemDefault()));
+				crearParticion(mes);
+				Date finMes = inicio(mes.plusMonths(1));
+				int movidos = mensajeArchivadoRepository.archivar(finMes.before(corte) ? finMes : corte, lote);
+				if (movidos == 0) {
+					break;
+				}
+				archivados.addAndGet(movidos);
+				lotes.incrementAndGet();
+				TimeUnit.MILLISECONDS.sleep(pausaMs);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (DataAccessException e) {
+			errores.incrementAndGet();
+			log.warn("Archivado de mensajes interrumpido: {}", e.getMessage());
+		}
+		ultimaEjecucion = new Date();
+		cargarHorizonte();
+	}
+
+	// CREATE ... IF NOT EXISTS: si dos nodos la crean a la vez uno falla, y lo reintenta en la siguiente ejecución
+	private void crearParticion(YearMonth mes) {
+		jdbcTemplate.execute(String.format(
+				"CREATE TABLE IF NOT EXISTS mensaje_archivado_p%d_%02d PARTITION OF mensaje_archivado FOR VALUES FROM ('%s') TO ('%s')",
+				mes.getYear(), mes.getMonthValue(), mes.atDay(1), mes.plusMonths(1).atDay(1)));
+	}
+
+	private Date corte() {
+		return new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(edadDias));
+	}
+
+	private static Date inicio(YearMonth mes) {
+		LocalDate dia = mes.atDay(1);
+		return Date.from(dia.atStartOfDay(ZoneId.systemDefault()).toInstant());
+	}
+
+	// Ningún mensaje archivado es posterior a esta fecha, así que una página de la tabla caliente que
+	// termina después no necesita mirar el archivo. Lo archivado con la configuración actual es anterior
+	// al corte; lo de antes (si se ha subido edad-dias) lo cubre la fecha más reciente del archivo.
+	public Date horizonte() {
+		if (!horizonteCargado) {
+			cargarHorizonte();
+		}
+		Date corte = corte();
+		Date archivado = masRecienteArchivado;
+		return archivado != null && archivado.after(corte) ? archivado : corte;
+	}
+
+	private void cargarHorizonte() {
+		try {
+			masRecienteArchivado = mensajeArchivadoRepository.findFechaMasReciente();
+			horizonteCargado = true;
+		} catch (DataAccessException e) {
+			log.warn("No se pudo leer la fecha más reciente del archivo de mensajes: {}", e.getMessage());
+		}
+	}
+
+	@PreDestroy
+	public void detener() {
+		hilo.shutdownNow();
+	}
+
+	public Map<String, Object> getMetricas() {
+		Map<String, Object> metricas = new LinkedHashMap<>();
+		metricas.put("activo", activo);
+		metricas.put("enCurso", enCurso.get());
+		metricas.put("archivados", archivados.get());
+		metricas.put("lotes", lotes.get());
+		metricas.put("errores", errores.get());
+		metricas.put("ultimaEjecucion", ultimaEjecucion);
+		metricas.put("horizonte", horizonte());
+		return metricas;
+	}
+}
@@ -0,0 +1,255 @@
+package manyWorker.service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Reparte los eventos de tiempo real entre nodos con LISTEN/NOTIFY de PostgreSQL, sin broker aparte.
+// Cada nodo escucha el canal con una conexión propia (fuera del pool) y entrega a sus clientes SSE lo
+// que publican los demás; lo suyo ya lo ha entregado localmente. El NOTIFY sale después del commit de
+// la transacción que escribe y desde un hilo propio: si falla (o no cabe) se pierde el aviso, nunca la
+// escritura. Si la conexión de escucha se cae se reabre; los eventos de ese hueco se pierden y el
+// cliente los recupera al pedir la bandeja.
+@Component
+public class BusEventos {
+
+	private static final Logger log = LoggerFactory.getLogger(BusEventos.class);
+	private static final TypeReference<Map<String, Object>> TIPO_MAPA = new TypeReference<>() {};
+	// Límite de PostgreSQL para el payload de un NOTIFY (en bytes, tiene que quedar por debajo)
+	private static final int MAX_PAYLOAD = 8000;
+	// NOTIFY pendientes de enviar; si se llena (BD caída o muy lenta) se descartan los nuevos
+	private static final int MAX_PENDIENTES = 10_000;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${manyworker.eventos.bus.activo:true}")
+	private boolean activo;
+
+	@Value("${manyworker.eventos.bus.canal:manyworker_eventos}")
+	private String canal;
+
+	@Value("${spring.datasource.url}")
+	private String url;
+
+	@Value("${spring.datasource.username}")
+	private String usuario;
+
+	@Value("${spring.datasource.password}")
+	private String password;
+
+	// Para descartar los NOTIFY que ha enviado este mismo nodo
+	private final String nodo = UUID.randomUUID().toString().substring(0, 8);
+
+	private final ThreadPoolExecutor envios = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<>(MAX_PENDIENTES), r -> {
+				Thread t = new Thread(r, "bus-eventos-envio");
+				t.setDaemon(true);
+				return t;
+			});
+
+	private volatile Consumer<Evento> receptor = evento -> { };
+	private volatile boolean detenido;
+	private volatile boolean escuchando;
+	private volatile Connection conexion;
+	private Thread hilo;
+
+	private final AtomicLong enviados = new AtomicLong();
+	private final AtomicLong recibidos = new AtomicLong();
+	private final AtomicLong erroresEnvio = new AtomicLong();
+	private final AtomicLong reconexiones = new AtomicLong();
+
+	// Evento tal como viaja por el canal. actorId 0 = todos los conectados menos "excepto".
+	public record Evento(int actorId, int excepto, String tipo, Object datos) {
+	}
+
+	@PostConstruct
+	public void iniciar() {
+		if (!activo) {
+			return;
+		}
+		hilo = new Thread(this::escuchar, "bus-eventos");
+		hilo.setDaemon(true);
+		hilo.start();
+	}
+
+	public void suscribir(Consumer<Evento> receptor) {
+		this.receptor = receptor;
+	}
+
+	// Envía el evento al resto de nodos cuando se confirme la transacción en curso (o ya, si no hay)
+	public void difundir(Evento evento) {
+		if (!activo) {
+			return;
+		}
+		String payload;
+		try {
+			Map<String, Object> mensaje = new LinkedHashMap<>();
+			mensaje.put("n", nodo);
+			mensaje.put("a", evento.actorId());
+			mensaje.put("x", evento.excepto());
+			mensaje.put("t", evento.tipo());
+			mensaje.put("d", evento.datos());
+			payload = objectMapper.writeValueAsString(mensaje);
+		} catch (JsonProcessingException e) {
+			erroresEnvio.incrementAndGet();
+			log.warn("No se pudo serializar el evento {}: {}", evento.tipo(), e.getMessage());
+			return;
+		}
+		int bytes = payload.getBytes(StandardCharsets.UTF_8).length;
+		if (bytes >= MAX_PAYLOAD) {
+			log.warn("Evento {} demasiado grande para NOTIFY ({} bytes); no se reparte a otros nodos", evento.tipo(), bytes);
+			erroresEnvio.incrementAndGet();
+			return;
+		}
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					encolar(evento.tipo(), payload);
+				}
+			});
+		} else {
+			encolar(evento.tipo(), payload);
+		}
+	}
+
+	// En afterCommit la conexión de la transacción sigue ligada al hilo: el NOTIFY se lanza desde otro
+	// hilo, con una conexión del pool en autocommit, y así tampoco retrasa la respuesta
+	private void encolar(String tipo, String payload) {
+		try {
+			envios.execute(() -> notificar(tipo, payload));
+		} catch (RejectedExecutionException e) {
+			erroresEnvio.incrementAndGet();
+			log.warn("Cola del bus de eventos llena; no se reparte el evento {}", tipo);
+		}
+	}
+
+	private void notificar(String tipo, String payload) {
+		try {
+			jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, canal, payload);
+			enviados.incrementAndGet();
+		} catch (RuntimeException e) {
+			// Sin bus los clientes de otros nodos lo verán al recargar la bandeja
+			erroresEnvio.incrementAndGet();
+			log.warn("No se pudo difundir el evento {}: {}", tipo, e.getMessage());
+		}
+	}
+
+	private void escuchar() {
+		long espera = 1000;
+		while (!detenido) {
+			try (Connection c = DriverManager.getConnection(url, usuario, password)) {
+				conexion = c;
+				try (Statement st = c.createStatement()) {
+					st.execute("LISTEN " + canal);
+				}
+				escuchando = true;
+				espera = 1000;
+				PGConnection pg = c.unwrap(PGConnection.class);
+				while (!detenido) {
+					// Bloquea hasta que llega algo o pasa el timeout (que sirve para comprobar que sigue viva)
+					PGNotification[] notificaciones = pg.getNotifications(10_000);
+					if (notificaciones != null) {
+						for (PGNotification notificacion : notificaciones) {
+							recibir(notificacion.getParameter());
+						}
+					}
+				}
+			} catch (SQLException e) {
+				if (detenido) {
+					return;
+				}
+				log.warn("Conexión de escucha del bus de eventos perdida: {}. Reintento en {} ms", e.getMessage(), espera);
+			} finally {
+				escuchando = false;
+				conexion = null;
+			}
+			if (!detenido) {
+				reconexiones.incrementAndGet();
+				try {
+					Thread.sleep(espera);
+				} catch (InterruptedException e) {
+					return;
+				}
+				espera = Math.min(espera * 2, 30_000);
+			}
+		}
+	}
+
+	private void recibir(String payload) {
+		try {
+			Map<String, Object> mensaje = objectMapper.readValue(payload, TIPO_MAPA);
+			if (nodo.equals(mensaje.get("n"))) {
+				return;
+			}
+			recibidos.incrementAndGet();
+			receptor.accept(new Evento(((Number) mensaje.get("a")).intValue(), ((Number) mensaje.get("x")).intValue(),
+					(String) mensaje.get("t"), mensaje.get("d")));
+		} catch (JsonProcessingException | RuntimeException e) {
+			log.warn("Evento del bus ignorado: {}", e.getMessage());
+		}
+	}
+
+	@PreDestroy
+	public void detener() {
+		detenido = true;
+		envios.shutdown();
+		Connection c = conexion;
+		if (c != null) {
+			try {
+				c.close();
+			} catch (SQLException e) {
+				// Se está cerrando igualmente
+			}
+		}
+		if (hilo != null) {
+			hilo.interrupt();
+		}
+	}
+
+	public Map<String, Object> getMetricas() {
+		Map<String, Object> metricas = new LinkedHashMap<>();
+		metricas.put("activo", activo);
+		metricas.put("nodo", nodo);
+		metricas.put("escuchando", escuchando);
+		metricas.put("enviados", enviados.get());
+		metricas.put("recibidos", recibidos.get());
+		metricas.put("pendientes", envios.getQueue().size());
+		metricas.put("erroresEnvio", erroresEnvio.get());
+		metricas.put("reconexiones", reconexiones.get());
+		return metricas;
+	}
+}
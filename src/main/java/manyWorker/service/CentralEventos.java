@@ -0,0 +1,297 @@
+package manyWorker.service;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Eventos en tiempo real (Server-Sent Events) para los actores conectados a este nodo, para que los
+// clientes no tengan que sondear la bandeja. Cada conexión tiene un buffer acotado y se escribe desde
+// un pool pequeño, nunca desde el hilo que publica: si un cliente lento llena su buffer se le cierra
+// la conexión (al reconectar vuelve a pedir la bandeja) en vez de acumular memoria.
+// Lo que se publica aquí llega a los clientes conectados a otros nodos a través de BusEventos.
+// Una conexión se autoriza solo al abrirla, así que no dura más que el token con el que se abrió y se
+// cierra (en todos los nodos) cuando se revoca ese token o las sesiones del actor, o se le banea.
+@Component
+public class CentralEventos {
+
+	// Tipos de evento de control que viajan por el bus: cierran conexiones en vez de entregarse
+	private static final String CERRAR_ACTOR = "_cerrarActor";
+	private static final String CERRAR_TOKEN = "_cerrarToken";
+
+	private final Map<Integer, Set<Conexion>> conexiones = new ConcurrentHashMap<>();
+	private final AtomicInteger numConexiones = new AtomicInteger();
+	private final ExecutorService envios;
+	private final int capacidadBuffer;
+	private final int maxConexionesPorActor;
+	private final long timeoutMs;
+
+	private final AtomicLong publicados = new AtomicLong();
+	private final AtomicLong enviados = new AtomicLong();
+	private final AtomicLong cerradasPorBufferLleno = new AtomicLong();
+	private final AtomicLong erroresEnvio = new AtomicLong();
+
+	@Autowired
+	private BusEventos busEventos;
+
+	public CentralEventos(@Value("${manyworker.sse.hilos:4}") int hilos,
+			@Value("${manyworker.sse.buffer:64}") int capacidadBuffer,
+			@Value("${manyworker.sse.conexiones-por-actor:5}") int maxConexionesPorActor,
+			@Value("${manyworker.sse.timeout-ms:1800000}") long timeoutMs) {
+		AtomicInteger numHilo = new AtomicInteger();
+		this.envios = Executors.newFixedThreadPool(hilos, r -> {
+			Thread hilo = new Thread(r, "sse-" + numHilo.incrementAndGet());
+			hilo.setDaemon(true);
+			return hilo;
+		});
+		this.capacidadBuffer = capacidadBuffer;
+		this.maxConexionesPorActor = maxConexionesPorActor;
+		this.timeoutMs = timeoutMs;
+	}
+
+	@PostConstruct
+	public void iniciar() {
+		busEventos.suscribir(this::recibir);
+	}
+
+	// Abre una conexión para el actor; si ya tiene el máximo se cierra la más antigua. Con token (jti y
+	// caducidad; null con clave de API) la conexión se corta cuando el token caduca.
+	public SseEmitter conectar(int actorId, String jti, Date caducidad) {
+		long timeout = timeoutMs;
+		if (caducidad != null) {
+			timeout = Math.max(1, Math.min(timeoutMs, caducidad.getTime() - System.currentTimeMillis()));
+		}
+		SseEmitter emitter = new SseEmitter(timeout);
+		Conexion conexion = new Conexion(actorId, jti, emitter);
+		// Alta y baja dentro de compute: así no se pierde una conexión que llega mientras se borra el conjunto vacío
+		Set<Conexion> delActor = conexiones.compute(actorId, (id, actuales) -> {
+			Set<Conexion> conjunto = actuales == null ? ConcurrentHashMap.newKeySet() : actuales;
+			conjunto.add(conexion);
+			return conjunto;
+		});
+		numConexiones.incrementAndGet();
+		emitter.onCompletion(() -> quitar(conexion));
+		// Al vencer (caducidad del token) se completa la respuesta: el cliente reconecta con un token nuevo
+		emitter.onTimeout(conexion::cerrar);
+		emitter.onError(e -> quitar(conexion));
+
+		if (delActor.size() > maxConexionesPorActor) {
+			delActor.stream().min((a, b) -> Long.compare(a.abierta, b.abierta)).ifPresent(Conexion::cerrar);
+		}
+		conexion.encolar(SseEmitter.event().name("conectado").data(Collections.singletonMap("actorId", actorId)));
+		return emitter;
+	}
+
+	// Publica un evento para un actor. Dentro de una transacción se envía al hacer commit,
+	// para no avisar de algo que luego se deshace. Los otros nodos lo reciben por el bus.
+	public void publicar(int actorId, String tipo, Object datos) {
+		publicados.incrementAndGet();
+		busEventos.difundir(new BusEventos.Evento(actorId, 0, tipo, datos));
+		trasCommit(() -> entregar(actorId, tipo, datos));
+	}
+
+	// Publica un evento para todos los actores conectados menos uno (el remitente de un broadcast)
+	public void publicarATodos(int excepto, String tipo, Object datos) {
+		publicados.incrementAndGet();
+		busEventos.difundir(new BusEventos.Evento(0, excepto, tipo, datos));
+		trasCommit(() -> entregarATodos(excepto, tipo, datos));
+	}
+
+	// Cierra las conexiones del actor en todos los nodos (sesiones revocadas, baneo, actor borrado).
+	// Como publicar: dentro de una transacción, al hacer commit (si se deshace, las conexiones siguen).
+	public void cerrarConexiones(int actorId) {
+		busEventos.difundir(new BusEventos.Evento(actorId, 0, CERRAR_ACTOR, null));
+		trasCommit(() -> cerrarDelActor(actorId));
+	}
+
+	// Cierra en todos los nodos las conexiones abiertas con un token revocado (logout)
+	public void cerrarConexionesToken(String jti) {
+		busEventos.difundir(new BusEventos.Evento(0, 0, CERRAR_TOKEN, jti));
+		trasCommit(() -> cerrarDelToken(jti));
+	}
+
+	private void cerrarDelActor(int actorId) {
+		Set<Conexion> delActor = conexiones.get(actorId);
+		if (delActor != null) {
+			delActor.forEach(Conexion::cerrar);
+		}
+	}
+
+	// Los logouts son poco frecuentes: se recorren todas las conexiones
+	private void cerrarDelToken(String jti) {
+		for (Set<Conexion> delActor : conexiones.values()) {
+			for (Conexion conexion : delActor) {
+				if (jti.equals(conexion.jti)) {
+					conexion.cerrar();
+				}
+			}
+		}
+	}
+
+	// Eventos publicados en otros nodos: ya están confirmados, se entregan directamente
+	private void recibir(BusEventos.Evento evento) {
+		if (CERRAR_ACTOR.equals(evento.tipo())) {
+			cerrarDelActor(evento.actorId());
+		} else if (CERRAR_TOKEN.equals(evento.tipo())) {
+			if (evento.datos() instanceof String jti) {
+				cerrarDelToken(jti);
+			}
+		} else if (evento.actorId() == 0) {
+			entregarATodos(evento.excepto(), evento.tipo(), evento.datos());
+		} else {
+			entregar(evento.actorId(), evento.tipo(), evento.datos());
+		}
+	}
+
+	private void entregarATodos(int excepto, String tipo, Object datos) {
+		for (Integer actorId : conexiones.keySet()) {
+			if (actorId != excepto) {
+				entregar(actorId, tipo, datos);
+			}
+		}
+	}
+
+	private void entregar(int actorId, String tipo, Object datos) {
+		Set<Conexion> delActor = conexiones.get(actorId);
+		if (delActor == null) {
+			return;
+		}
+		for (Conexion conexion : delActor) {
+			conexion.encolar(SseEmitter.event().name(tipo).data(datos));
+		}
+	}
+
+	private static void trasCommit(Runnable accion) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					accion.run();
+				}
+			});
+		} else {
+			accion.run();
+		}
+	}
+
+	// Comentario SSE periódico: mantiene viva la conexión a través de proxies y detecta clientes caídos
+	@Scheduled(fixedDelayString = "${manyworker.sse.heartbeat-ms:15000}", initialDelayString = "${manyworker.sse.heartbeat-ms:15000}")
+	public void heartbeat() {
+		for (Set<Conexion> delActor : conexiones.values()) {
+			for (Conexion conexion : delActor) {
+				conexion.encolar(SseEmitter.event().comment("ping"));
+			}
+		}
+	}
+
+	private void quitar(Conexion conexion) {
+		conexiones.computeIfPresent(conexion.actorId, (id, actuales) -> {
+			if (actuales.remove(conexion)) {
+				numConexiones.decrementAndGet();
+			}
+			return actuales.isEmpty() ? null : actuales;
+		});
+	}
+
+	@PreDestroy
+	public void detener() {
+		for (Set<Conexion> delActor : conexiones.values()) {
+			delActor.forEach(Conexion::cerrar);
+		}
+		envios.shutdownNow();
+	}
+
+	public Map<String, Object> getMetricas() {
+		Map<String, Object> metricas = new LinkedHashMap<>();
+		metricas.put("conexiones", numConexiones.get());
+		metricas.put("actoresConectados", conexiones.size());
+		metricas.put("publicados", publicados.get());
+		metricas.put("enviados", enviados.get());
+		metricas.put("cerradasPorBufferLleno", cerradasPorBufferLleno.get());
+		metricas.put("erroresEnvio", erroresEnvio.get());
+		return metricas;
+	}
+
+	// Una conexión SSE: buffer acotado y como mucho una tarea de envío en curso, para que los
+	// eventos salgan en orden sin bloquear a quien publica
+	private class Conexion {
+		private final int actorId;
+		private final String jti;
+		private final SseEmitter emitter;
+		private final long abierta = System.nanoTime();
+		private final BlockingQueue<SseEmitter.SseEventBuilder> buffer = new ArrayBlockingQueue<>(capacidadBuffer);
+		private final AtomicBoolean enviando = new AtomicBoolean();
+		private volatile boolean cerrada;
+
+		Conexion(int actorId, String jti, SseEmitter emitter) {
+			this.actorId = actorId;
+			this.jti = jti;
+			this.emitter = emitter;
+		}
+
+		void encolar(SseEmitter.SseEventBuilder evento) {
+			if (cerrada) {
+				return;
+			}
+			if (!buffer.offer(evento)) {
+				cerradasPorBufferLleno.incrementAndGet();
+				cerrar();
+				return;
+			}
+			if (enviando.compareAndSet(false, true)) {
+				envios.execute(this::vaciar);
+			}
+		}
+
+		private void vaciar() {
+			try {
+				SseEmitter.SseEventBuilder evento;
+				while (!cerrada && (evento = buffer.poll()) != null) {
+					emitter.send(evento);
+					enviados.incrementAndGet();
+				}
+			} catch (IOException | IllegalStateException e) {
+				erroresEnvio.incrementAndGet();
+				cerrar();
+			} finally {
+				enviando.set(false);
+			}
+			// Un evento encolado mientras se liberaba el turno no debe quedarse esperando
+			if (!cerrada && !buffer.isEmpty() && enviando.compareAndSet(false, true)) {
+				envios.execute(this::vaciar);
+			}
+		}
+
+		void cerrar() {
+			cerrada = true;
+			buffer.clear();
+			quitar(this);
+			try {
+				emitter.complete();
+			} catch (RuntimeException e) {
+				// Ya estaba cerrada
+			}
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package manyWorker.service;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import jakarta.transaction.Transactional;
+import manyWorker.entity.Actor;
+import manyWorker.entity.ClaveApi;
+import manyWorker.repository.ClaveApiRepository;
+import manyWorker.security.JWTUtils;
+import manyWorker.security.RegistroClavesApi;
+
+@Service
+public class ClaveApiService {
+
+	private static final SecureRandom RANDOM = new SecureRandom();
+	private static final String PREFIJO_CLAVE = "mw_";
+	// Validez máxima de una clave (10 años); más allá, mejor una clave sin caducidad
+	public static final int MAX_DIAS_VALIDEZ = 3650;
+
+	@Autowired
+	private ClaveApiRepository claveApiRepository;
+
+	@Autowired
+	private RegistroClavesApi registroClavesApi;
+
+	// Crea una clave para el actor y devuelve sus datos junto con el valor en claro (solo se ve esta vez)
+	public Map<String, Object> crear(Actor actor, String nombre, boolean soloLectura, Integer diasValidez) {
+		byte[] bytes = new byte[32];
+		RANDOM.nextBytes(bytes);
+		String clave = PREFIJO_CLAVE + Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+		Date ahora = new Date();
+		Date expiracion = diasValidez == null ? null : new Date(ahora.getTime() + TimeUnit.DAYS.toMillis(diasValidez));
+		ClaveApi guardada = claveApiRepository.save(new ClaveApi(nombre, clave.substring(0, 10), JWTUtils.sha256(clave),
+				actor, soloLectura, ahora, expiracion));
+		registroClavesApi.registrar(guardada);
+
+		Map<String, Object> respuesta = new LinkedHashMap<>();
+		respuesta.put("id", guardada.getId());
+		respuesta.put("nombre", guardada.getNombre());
+		respuesta.put("clave", clave);
+		respuesta.put("soloLectura", guardada.isSoloLectura());
+		respuesta.put("expiracion", guardada.getExpiracion());
+		return respuesta;
+	}
+
+	public List<ClaveApi> findByActor(int actorId) {
+		return claveApiRepository.findByActorId(actorId);
+	}
+
+	// Revoca una clave del actor; devuelve false si no existe o no es suya
+	@Transactional
+	public boolean revocar(int actorId, int claveId) {
+		Optional<ClaveApi> oClave = claveApiRepository.findByIdAndActorId(claveId, actorId);
+		if (oClave.isEmpty()) {
+			return false;
+		}
+		ClaveApi clave = oClave.get();
+		clave.setRevocada(true);
+		claveApiRepository.save(clave);
+		registroClavesApi.quitar(clave.getHash());
+		return true;
+	}
+}
@@ -22,6 +22,9 @@ public class ClienteService {
 
     @Autowired
     private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ActorService actorService;
     
     public Optional<Cliente> findByUsername(String username) {
         return clienteRepository.findByUsername(username);
@@ -61,13 +64,17 @@ public class ClienteService {
             c.setDireccion(cliente.getDireccion());
             c.setNumeroPerfiles(cliente.getNumeroPerfiles());
             // NO llamamos a save() porque reencriptaría el password
-            return this.clienteRepository.save(c);
+            Cliente actualizado = this.clienteRepository.save(c);
+            actorService.invalidarCache(actualizado);
+            return actualizado;
         }
         return null;
     }
 
     public void delete(int id) {
+        Optional<Cliente> eliminado = this.clienteRepository.findById(id);
         this.clienteRepository.deleteById(id);
+        eliminado.ifPresent(actorService::actorEliminado);
     }
     
     public Map<String, Object> exportarDatos(int id) {
@@ -90,7 +97,7 @@ public class ClienteService {
         if (!clienteRepository.existsById(id)) {
             throw new RuntimeException("Cliente no encontrado");
         }
-        clienteRepository.deleteById(id);
+        delete(id);
     }
     
     public boolean existsById(int id) {
@@ -0,0 +1,31 @@
+package manyWorker.service;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+// Aplica al arrancar lo que ddl-auto=update no crea: primero particiones-postgres.sql (un solo bloque,
+// sin trocear por ';') y después esquema-postgres.sql (columnas generadas, índices GIN...). Depende del
+// EntityManagerFactory para ejecutarse cuando Hibernate ya ha creado o actualizado las tablas.
+@Component
+@DependsOn("entityManagerFactory")
+public class EsquemaPostgres {
+
+	@Autowired
+	private DataSource dataSource;
+
+	@PostConstruct
+	public void aplicar() {
+		ResourceDatabasePopulator particiones = new ResourceDatabasePopulator(new ClassPathResource("particiones-postgres.sql"));
+		particiones.setSeparator(ScriptUtils.EOF_STATEMENT_SEPARATOR);
+		particiones.execute(dataSource);
+		new ResourceDatabasePopulator(new ClassPathResource("esquema-postgres.sql")).execute(dataSource);
+	}
+}
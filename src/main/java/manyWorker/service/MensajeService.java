@@ -1,52 +1,96 @@
 package manyWorker.service;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import jakarta.transaction.Transactional;
 import manyWorker.entity.Actor;
+import manyWorker.entity.Broadcast;
+import manyWorker.entity.ContadorNoLeidos;
 import manyWorker.entity.Mensaje;
+import manyWorker.entity.MensajeVista;
+import manyWorker.entity.ResumenConversacion;
 import manyWorker.entity.Roles;
 import manyWorker.repository.ActorRepository;
+import manyWorker.repository.BroadcastRepository;
+import manyWorker.repository.ContadorNoLeidosRepository;
+import manyWorker.repository.MensajeArchivadoRepository;
 import manyWorker.repository.MensajeRepository;
+import manyWorker.repository.ResumenConversacionRepository;
+import manyWorker.security.ActorActual;
 
 @Service
 public class MensajeService {
 
+	// Orden de las bandejas: fecha de envío e id, descendentes
+	private static final Comparator<MensajeVista> ORDEN_BANDEJA = Comparator
+			.comparingLong((MensajeVista m) -> m.fechaEnvio().getTime()).thenComparingInt(MensajeVista::id).reversed();
+
 	@Autowired
 	private MensajeRepository mensajeRepository;
 
+	@Autowired
+	private MensajeArchivadoRepository mensajeArchivadoRepository;
+
+	@Autowired
+	private BroadcastRepository broadcastRepository;
+
+	@Autowired
+	private ContadorNoLeidosRepository contadorNoLeidosRepository;
+
+	@Autowired
+	private ResumenConversacionRepository resumenConversacionRepository;
+
 	@Autowired
 	private ActorRepository actorRepository;
 
+	@Autowired
+	private ActorActual actorActual;
+
+	@Autowired
+	private CentralEventos centralEventos;
+
+	@Autowired
+	private ArchivoMensajes archivoMensajes;
+
 	// ====== MÉTODO HELPER: obtener el Actor autenticado de forma segura ======
-	// El Principal de Spring Security es un String (username), NO un objeto Actor.
-	// Por eso hay que buscarlo en la BD.
+	// Se resuelve una sola vez por petición y se comparte con el resto de servicios y controladores.
 	private Actor getActorAutenticado() {
-		String username = SecurityContextHolder.getContext().getAuthentication().getName();
-		return actorRepository.findByUsername(username)
+		return actorActual.obtener()
 				.orElseThrow(() -> new RuntimeException("Usuario autenticado no encontrado en BD"));
 	}
 
-	public Optional<Mensaje> findById(int id) {
-		Optional<Mensaje> mensaje = mensajeRepository.findById(id);
+	public Optional<MensajeVista> findById(int id) {
+		Optional<MensajeVista> mensaje = mensajeRepository.findVistaById(id);
+		if (mensaje.isEmpty()) {
+			mensaje = mensajeArchivadoRepository.findVistaById(id);
+		}
 
 		if (mensaje.isEmpty())
 			return Optional.empty();
 
 		Actor actorAutenticado = getActorAutenticado();
 
-		Mensaje m = mensaje.get();
+		MensajeVista m = mensaje.get();
 
 		boolean esAdmin = actorAutenticado.getRol() == Roles.ADMINISTRADOR;
 
-		if (!esAdmin && m.getRemitente().getId() != (actorAutenticado.getId())
-				&& m.getDestinatario().getId() != (actorAutenticado.getId())) {
+		if (!esAdmin && m.remitente().id() != (actorAutenticado.getId())
+				&& m.destinatario().id() != (actorAutenticado.getId())) {
 
 			throw new AccessDeniedException("No tienes permiso para acceder a este mensaje");
 		}
@@ -54,16 +98,22 @@ public class MensajeService {
 		return mensaje;
 	}
 
-	public List<Mensaje> findAll() {
-		return mensajeRepository.findAll();
+	public List<MensajeVista> findAll() {
+		return mensajeRepository.findAllVistas();
 	}
 
 	public Mensaje save(Mensaje mensaje) {
 		return mensajeRepository.save(mensaje);
 	}
 
+	@Transactional
 	public void delete(int id) {
-		Mensaje m = mensajeRepository.findById(id).orElseThrow(() -> new RuntimeException("Mensaje no encontrado"));
+		Optional<Mensaje> caliente = mensajeRepository.findById(id);
+		if (caliente.isEmpty()) {
+			deleteArchivado(id);
+			return;
+		}
+		Mensaje m = caliente.get();
 
 		Actor actorAutenticado = getActorAutenticado();
 
@@ -75,14 +125,224 @@ public class MensajeService {
 			throw new AccessDeniedException("No tienes permiso para eliminar este mensaje");
 		}
 
+		int remitenteId = m.getRemitente().getId();
+		int destinatarioId = m.getDestinatario().getId();
 		mensajeRepository.delete(m);
+		if (m.getFechaLectura() == null) {
+			contadorNoLeidosRepository.restar(destinatarioId, 1);
+			resumenConversacionRepository.restarNoLeidos(destinatarioId, remitenteId, 1);
+		}
+		reemplazarUltimo(remitenteId, destinatarioId, m.getId());
+	}
+
+	// Los archivados ya están leídos: no tocan los contadores, solo el resumen si era el último.
+	// El borrado comprueba otra vez que sea del actor, en la misma sentencia.
+	private void deleteArchivado(int id) {
+		MensajeVista m = mensajeArchivadoRepository.findVistaById(id)
+				.orElseThrow(() -> new RuntimeException("Mensaje no encontrado"));
+
+		Actor actorAutenticado = getActorAutenticado();
+
+		boolean esAdmin = actorAutenticado.getRol() == Roles.ADMINISTRADOR;
+
+		if (!esAdmin && m.remitente().id() != (actorAutenticado.getId())
+				&& m.destinatario().id() != (actorAutenticado.getId())) {
+
+			throw new AccessDeniedException("No tienes permiso para eliminar este mensaje");
+		}
+
+		if (mensajeArchivadoRepository.borrar(id, actorAutenticado.getId(), esAdmin) > 0) {
+			reemplazarUltimo(m.remitente().id(), m.destinatario().id(), id);
+		}
+	}
+
+	// Si el borrado era el último de la conversación el resumen pasa al anterior (o desaparece si no queda
+	// ninguno). Los sin leer no se archivan aunque sean antiguos, así que el anterior puede estar en el
+	// archivo aunque queden mensajes en la tabla: se mira en los dos si la tabla no llega al horizonte.
+	private void reemplazarUltimo(int remitenteId, int destinatarioId, int borradoId) {
+		long conversacion = Mensaje.claveConversacion(remitenteId, destinatarioId);
+		List<Mensaje> ultimos = mensajeRepository.findUltimosDeConversacion(conversacion, remitenteId, destinatarioId,
+				Limit.of(1));
+		Integer ultimoId = ultimos.isEmpty() ? null : ultimos.get(0).getId();
+		Date fechaUltimo = ultimos.isEmpty() ? null : ultimos.get(0).getFechaEnvio();
+		if (fechaUltimo == null || !fechaUltimo.after(archivoMensajes.horizonte())) {
+			for (MensajeVista archivado : mensajeArchivadoRepository.findConversacion(conversacion, Limit.of(1))) {
+				int orden = fechaUltimo == null ? 1 : archivado.fechaEnvio().compareTo(fechaUltimo);
+				if (orden > 0 || (orden == 0 && archivado.id() > ultimoId)) {
+					ultimoId = archivado.id();
+					fechaUltimo = archivado.fechaEnvio();
+				}
+			}
+		}
+		if (ultimoId == null) {
+			resumenConversacionRepository.borrarConversacion(remitenteId, destinatarioId);
+		} else {
+			resumenConversacionRepository.reemplazarUltimo(remitenteId, destinatarioId, borradoId, ultimoId, fechaUltimo);
+		}
 	}
 
 	public boolean existsById(int id) {
-		return mensajeRepository.existsById(id);
+		return mensajeRepository.existsById(id) || mensajeArchivadoRepository.existsById(id);
+	}
+
+	// Bandeja de entrada por páginas: el cursor es el "siguiente" de la página anterior (null = primera).
+	// Mezcla los mensajes directos con los broadcasts visibles para el actor; las dos consultas usan
+	// el mismo cursor y cada una trae como mucho una página, así que la mezcla es de 2 listas cortas.
+	public Pagina<MensajeVista> findRecibidos(int destinatarioId, String cursor, Integer limite) {
+		int tamano = Pagina.limitar(limite);
+		Pagina.Cursor desde = Pagina.Cursor.decodificar(cursor);
+		Limit limit = Limit.of(tamano + 1);
+		List<MensajeVista> mensajes = conArchivo(destinatarioId, desde == null ? mensajeRepository.findRecibidos(destinatarioId, limit)
+				: mensajeRepository.findRecibidosDespuesDe(destinatarioId, desde.fecha(), desde.id(), limit), tamano,
+				() -> desde == null ? mensajeArchivadoRepository.findRecibidos(destinatarioId, limit)
+						: mensajeArchivadoRepository.findRecibidosDespuesDe(destinatarioId, desde.fecha(), desde.id(), limit));
+
+		Optional<Actor> destinatario = actorRepository.findById(destinatarioId);
+		if (destinatario.isEmpty()) {
+			return pagina(mensajes, tamano);
+		}
+		Date alta = destinatario.get().getFechaAlta() == null ? new Date(0) : destinatario.get().getFechaAlta();
+		List<MensajeVista> broadcasts = desde == null ? broadcastRepository.findVisibles(destinatarioId, alta, limit)
+				: broadcastRepository.findVisiblesDespuesDe(destinatarioId, alta, desde.fecha(), desde.id(), limit);
+		Date leidosHasta = broadcasts.isEmpty() ? null : contadorNoLeidosRepository.findById(destinatarioId)
+				.map(ContadorNoLeidos::getBroadcastsLeidosHasta).orElse(null);
+		return pagina(mezclar(mensajes, broadcasts, leidosHasta), tamano);
+	}
+
+	// Bandeja de salida: cada broadcast enviado aparece una sola vez, sin destinatario
+	public Pagina<MensajeVista> findEnviados(int remitenteId, String cursor, Integer limite) {
+		int tamano = Pagina.limitar(limite);
+		Pagina.Cursor desde = Pagina.Cursor.decodificar(cursor);
+		Limit limit = Limit.of(tamano + 1);
+		List<MensajeVista> mensajes = conArchivo(remitenteId, desde == null ? mensajeRepository.findEnviados(remitenteId, limit)
+				: mensajeRepository.findEnviadosDespuesDe(remitenteId, desde.fecha(), desde.id(), limit), tamano,
+				() -> desde == null ? mensajeArchivadoRepository.findEnviados(remitenteId, limit)
+						: mensajeArchivadoRepository.findEnviadosDespuesDe(remitenteId, desde.fecha(), desde.id(), limit));
+		List<MensajeVista> broadcasts = desde == null ? broadcastRepository.findEnviados(remitenteId, limit)
+				: broadcastRepository.findEnviadosDespuesDe(remitenteId, desde.fecha(), desde.id(), limit);
+		return pagina(mezclar(mensajes, broadcasts, null), tamano);
+	}
+
+	// Conversación con otro actor: los mensajes de los dos sentidos, del más reciente al más antiguo.
+	// Un solo rango del índice (conversacion, fechaEnvio, id), sin mezclar las dos bandejas.
+	public Pagina<MensajeVista> findConversacion(int actorId, int interlocutorId, String cursor, Integer limite) {
+		int tamano = Pagina.limitar(limite);
+		Pagina.Cursor desde = Pagina.Cursor.decodificar(cursor);
+		long conversacion = Mensaje.claveConversacion(actorId, interlocutorId);
+		Limit limit = Limit.of(tamano + 1);
+		List<MensajeVista> mensajes = conArchivo(actorId, desde == null
+				? mensajeRepository.findConversacion(conversacion, actorId, interlocutorId, limit)
+				: mensajeRepository.findConversacionDespuesDe(conversacion, actorId, interlocutorId, desde.fecha(), desde.id(), limit),
+				tamano,
+				() -> desde == null ? mensajeArchivadoRepository.findConversacion(conversacion, limit)
+						: mensajeArchivadoRepository.findConversacionDespuesDe(conversacion, desde.fecha(), desde.id(), limit));
+		return pagina(mensajes, tamano);
+	}
+
+	// Bandeja agrupada: una entrada por interlocutor con su último mensaje y los no leídos, de la
+	// conversación más reciente a la más antigua. Sale de ResumenConversacion (una consulta por rango)
+	// más los últimos mensajes de la página por id. El cursor es (fecha del último, id del interlocutor).
+	public Pagina<Map<String, Object>> findConversaciones(int actorId, String cursor, Integer limite) {
+		int tamano = Pagina.limitar(limite);
+		Pagina.Cursor desde = Pagina.Cursor.decodificar(cursor);
+		Limit limit = Limit.of(tamano + 1);
+		List<ResumenConversacion> resumenes = desde == null ? resumenConversacionRepository.findByActor(actorId, limit)
+				: resumenConversacionRepository.findByActorDespuesDe(actorId, desde.fecha(), desde.id(), limit);
+
+		List<ResumenConversacion> pagina = resumenes.size() > tamano ? resumenes.subList(0, tamano) : resumenes;
+		Map<Integer, MensajeVista> ultimos = new HashMap<>();
+		if (!pagina.isEmpty()) {
+			List<Integer> ids = pagina.stream().map(ResumenConversacion::getUltimoMensajeId).toList();
+			// Cada último mensaje lo ha recibido el actor o ese interlocutor: solo se leen sus particiones
+			Set<Integer> destinatarios = new HashSet<>();
+			destinatarios.add(actorId);
+			pagina.forEach(r -> destinatarios.add(r.getInterlocutorId()));
+			mensajeRepository.findVistasByIdInDeDestinatarios(ids, destinatarios).forEach(m -> ultimos.put(m.id(), m));
+			// Conversaciones sin movimiento desde hace tiempo: su último mensaje ya está archivado
+			List<Integer> archivados = ids.stream().filter(id -> !ultimos.containsKey(id)).toList();
+			if (!archivados.isEmpty()) {
+				mensajeArchivadoRepository.findVistasByIdIn(archivados).forEach(m -> ultimos.put(m.id(), m));
+			}
+		}
+
+		List<Map<String, Object>> elementos = new ArrayList<>();
+		for (ResumenConversacion resumen : pagina) {
+			MensajeVista ultimo = ultimos.get(resumen.getUltimoMensajeId());
+			if (ultimo == null) {
+				continue;  // borrado entre las dos consultas
+			}
+			Map<String, Object> elemento = new LinkedHashMap<>();
+			elemento.put("interlocutor", ultimo.remitente().id() == resumen.getInterlocutorId() ? ultimo.remitente()
+					: ultimo.destinatario());
+			elemento.put("noLeidos", resumen.getNoLeidos());
+			elemento.put("ultimoMensaje", ultimo);
+			elementos.add(elemento);
+		}
+		String siguiente = null;
+		if (resumenes.size() > tamano) {
+			ResumenConversacion ultimo = pagina.get(tamano - 1);
+			siguiente = new Pagina.Cursor(ultimo.getFechaUltimo(), ultimo.getInterlocutorId()).codificar();
+		}
+		return new Pagina<>(elementos, siguiente);
+	}
+
+	// Sigue en el archivo si la página de la tabla de mensajes (pedida con una fila de más) no llega
+	// a llenarse o acaba antes del horizonte del archivo; si no, el archivo no puede aportar nada.
+	// Antes de consultarlo (recorre todas sus particiones si es la primera página) se mira por clave
+	// hasta dónde tiene archivado el actor: nada, o nada que entre en la página, y no hace falta.
+	// La consulta del archivo usa el mismo cursor y límite, y las dos listas se mezclan por fecha.
+	private List<MensajeVista> conArchivo(int actorId, List<MensajeVista> mensajes, int tamano,
+			Supplier<List<MensajeVista>> delArchivo) {
+		boolean llena = mensajes.size() > tamano;
+		Date finPagina = llena ? mensajes.get(mensajes.size() - 1).fechaEnvio() : null;
+		if (llena && finPagina.after(archivoMensajes.horizonte())) {
+			return mensajes;
+		}
+		Date archivadoHasta = contadorNoLeidosRepository.findArchivadoHasta(actorId);
+		if (archivadoHasta == null || (llena && finPagina.after(archivadoHasta))) {
+			return mensajes;
+		}
+		List<MensajeVista> archivados = delArchivo.get();
+		if (archivados.isEmpty()) {
+			return mensajes;
+		}
+		List<MensajeVista> todos = new ArrayList<>(mensajes.size() + archivados.size());
+		todos.addAll(mensajes);
+		todos.addAll(archivados);
+		todos.sort(ORDEN_BANDEJA);
+		return todos;
+	}
+
+	// Mensajes y broadcasts comparten secuencia de ids, así que (fecha, id) sigue siendo un orden total
+	private static List<MensajeVista> mezclar(List<MensajeVista> mensajes, List<MensajeVista> broadcasts,
+			Date broadcastsLeidosHasta) {
+		if (broadcasts.isEmpty()) {
+			return mensajes;
+		}
+		List<MensajeVista> todos = new ArrayList<>(mensajes.size() + broadcasts.size());
+		todos.addAll(mensajes);
+		for (MensajeVista broadcast : broadcasts) {
+			if (broadcastsLeidosHasta != null && !broadcast.fechaEnvio().after(broadcastsLeidosHasta)) {
+				broadcast = broadcast.leido(broadcastsLeidosHasta);
+			}
+			todos.add(broadcast);
+		}
+		todos.sort(ORDEN_BANDEJA);
+		return todos;
+	}
+
+	// Se pide una fila de más para saber si hay otra página sin hacer un COUNT
+	private Pagina<MensajeVista> pagina(List<MensajeVista> mensajes, int tamano) {
+		if (mensajes.size() <= tamano) {
+			return new Pagina<>(mensajes, null);
+		}
+		List<MensajeVista> elementos = mensajes.subList(0, tamano);
+		MensajeVista ultimo = elementos.get(tamano - 1);
+		return new Pagina<>(elementos, new Pagina.Cursor(ultimo.fechaEnvio(), ultimo.id()).codificar());
 	}
 
 	// Enviar un mensaje entre actores
+	@Transactional
 	public Mensaje enviarMensaje(int idRemitente, int idDestinatario, String asunto, String cuerpo) {
 		Optional<Actor> oRemitente = actorRepository.findById(idRemitente);
 		Optional<Actor> oDestinatario = actorRepository.findById(idDestinatario);
@@ -91,29 +351,203 @@ public class MensajeService {
 			throw new RuntimeException("Remitente o destinatario no encontrados");
 		}
 
-		Actor remitente = oRemitente.get();
-		Actor destinatario = oDestinatario.get();
+		return enviarMensaje(oRemitente.get(), oDestinatario.get(), asunto, cuerpo);
+	}
 
-		Mensaje mensaje = new Mensaje(remitente, destinatario, new Date(), asunto, cuerpo);
-		return mensajeRepository.save(mensaje);
+	// Variante para cuando los actores ya están cargados (evita volver a consultarlos).
+	// El contador de no leídos y los resúmenes de la conversación se actualizan en la misma transacción.
+	@Transactional
+	public Mensaje enviarMensaje(Actor remitente, Actor destinatario, String asunto, String cuerpo) {
+		Mensaje mensaje = mensajeRepository.save(new Mensaje(remitente, destinatario, new Date(), asunto, cuerpo));
+		contadorNoLeidosRepository.sumar(destinatario.getId(), 1);
+		resumenConversacionRepository.registrarMensaje(remitente.getId(), destinatario.getId(), mensaje.getId(),
+				mensaje.getFechaEnvio(), 0);
+		resumenConversacionRepository.registrarMensaje(destinatario.getId(), remitente.getId(), mensaje.getId(),
+				mensaje.getFechaEnvio(), 1);
+		centralEventos.publicar(destinatario.getId(), "mensaje", evento(MensajeVista.de(mensaje)));
+		return mensaje;
+	}
+
+	// Búsqueda por texto en los mensajes que el actor puede ver (enviados, recibidos y broadcasts; los
+	// administradores, en todos), de más a menos relevante. Cada resultado lleva un fragmento resaltado.
+	public Pagina<Map<String, Object>> buscar(Actor actor, String texto, String cursor, Integer limite) {
+		int tamano = Pagina.limitar(limite);
+		Pagina.CursorRango desde = Pagina.CursorRango.decodificar(cursor);
+		boolean todos = actor.getRol() == Roles.ADMINISTRADOR;
+		Date alta = actor.getFechaAlta() == null ? new Date(0) : actor.getFechaAlta();
+		List<MensajeRepository.ResultadoBusqueda> resultados = mensajeRepository.buscar(texto, actor.getId(), todos, alta,
+				desde == null ? Float.MAX_VALUE : desde.rango(), desde == null ? Integer.MAX_VALUE : desde.id(), tamano + 1);
+
+		List<MensajeRepository.ResultadoBusqueda> pagina = resultados.size() > tamano ? resultados.subList(0, tamano) : resultados;
+		List<Integer> idsMensajes = new ArrayList<>();
+		Set<Integer> destinatarios = new HashSet<>();
+		List<Integer> idsBroadcasts = new ArrayList<>();
+		for (MensajeRepository.ResultadoBusqueda resultado : pagina) {
+			if (resultado.getBroadcast()) {
+				idsBroadcasts.add(resultado.getId());
+			} else {
+				idsMensajes.add(resultado.getId());
+				destinatarios.add(resultado.getDestinatario());
+			}
+		}
+		Map<Integer, MensajeVista> mensajes = new HashMap<>();
+		if (!idsMensajes.isEmpty()) {
+			mensajeRepository.findVistasByIdInDeDestinatarios(idsMensajes, destinatarios).forEach(m -> mensajes.put(m.id(), m));
+		}
+		if (!idsBroadcasts.isEmpty()) {
+			broadcastRepository.findVistasByIdIn(idsBroadcasts).forEach(b -> mensajes.put(b.id(), b));
+		}
+
+		List<Map<String, Object>> elementos = new ArrayList<>();
+		for (MensajeRepository.ResultadoBusqueda resultado : pagina) {
+			MensajeVista mensaje = mensajes.get(resultado.getId());
+			if (mensaje == null) {
+				continue;  // borrado entre las dos consultas
+			}
+			Map<String, Object> elemento = new LinkedHashMap<>();
+			elemento.put("id", mensaje.id());
+			elemento.put("broadcast", mensaje.broadcast());
+			elemento.put("remitente", mensaje.remitente());
+			elemento.put("destinatario", mensaje.destinatario());
+			elemento.put("fechaEnvio", mensaje.fechaEnvio());
+			elemento.put("asunto", mensaje.asunto());
+			elemento.put("fragmento", resultado.getFragmento());
+			elemento.put("rango", resultado.getRango());
+			elementos.add(elemento);
+		}
+		String siguiente = null;
+		if (resultados.size() > tamano) {
+			MensajeRepository.ResultadoBusqueda ultimo = pagina.get(tamano - 1);
+			siguiente = new Pagina.CursorRango(ultimo.getRango(), ultimo.getId()).codificar();
+		}
+		return new Pagina<>(elementos, siguiente);
+	}
+
+	// Contador para la app: una lectura por clave y, si hay broadcasts nuevos, un rango corto de su índice
+	public Map<String, Object> contarNoLeidos(Actor actor) {
+		Optional<ContadorNoLeidos> contador = contadorNoLeidosRepository.findById(actor.getId());
+		int mensajes = contador.map(ContadorNoLeidos::getNoLeidos).orElse(0);
+		long broadcasts = broadcastRepository.countPosteriores(actor.getId(),
+				broadcastsLeidosDesde(actor, contador.map(ContadorNoLeidos::getBroadcastsLeidosHasta).orElse(null)));
+
+		Map<String, Object> resultado = new LinkedHashMap<>();
+		resultado.put("mensajes", mensajes);
+		resultado.put("broadcasts", broadcasts);
+		resultado.put("total", mensajes + broadcasts);
+		return resultado;
+	}
+
+	// Los broadcasts anteriores al alta no los ve; los anteriores a la última lectura ya están leídos
+	private static Date broadcastsLeidosDesde(Actor actor, Date leidosHasta) {
+		Date alta = actor.getFechaAlta() == null ? new Date(0) : new Date(actor.getFechaAlta().getTime() - 1);
+		return leidosHasta != null && leidosHasta.after(alta) ? leidosHasta : alta;
+	}
+
+	// Marca como leído un mensaje o broadcast del actor. Un broadcast se lee "hasta" su fecha:
+	// marca también los anteriores. false si no existe o no lo ha recibido el actor (el destinatario va
+	// en la consulta, que así lee una sola partición; no se distingue un caso del otro).
+	@Transactional
+	public boolean marcarLeido(Actor actor, int id) {
+		if (mensajeRepository.existsRecibido(id, actor.getId())) {
+			marcarLeidos(actor, List.of(id));
+			return true;
+		}
+		Optional<Broadcast> broadcast = broadcastRepository.findById(id);
+		if (broadcast.isEmpty() || broadcast.get().getRemitente().getId() == actor.getId()) {
+			return false;
+		}
+		contadorNoLeidosRepository.avanzarBroadcastsLeidos(actor.getId(), broadcast.get().getFechaEnvio());
+		return true;
+	}
+
+	// Marcado en bloque: una sentencia para los mensajes y los contadores bajan en lo que se ha marcado de
+	// verdad (el total y el de cada conversación). Se ignoran los ids que no son del actor.
+	// Devuelve cuántos mensajes directos han pasado a leídos.
+	@Transactional
+	public int marcarLeidos(Actor actor, List<Integer> ids) {
+		Date ahora = new Date();
+		List<Mensaje> sinLeer = mensajeRepository.findSinLeerParaMarcar(actor.getId(), ids);
+		int marcados = 0;
+		if (!sinLeer.isEmpty()) {
+			marcados = mensajeRepository.marcarLeidos(actor.getId(), ahora, sinLeer.stream().map(Mensaje::getId).toList());
+			contadorNoLeidosRepository.restar(actor.getId(), marcados);
+			Map<Integer, Integer> porInterlocutor = new HashMap<>();
+			for (Mensaje mensaje : sinLeer) {
+				porInterlocutor.merge(mensaje.getRemitente().getId(), 1, Integer::sum);
+			}
+			porInterlocutor.forEach((interlocutorId, cantidad) ->
+					resumenConversacionRepository.restarNoLeidos(actor.getId(), interlocutorId, cantidad));
+		}
+		if (marcados < ids.size()) {
+			broadcastRepository.findAllById(ids).stream()
+					.filter(b -> b.getRemitente().getId() != actor.getId())
+					.map(Broadcast::getFechaEnvio)
+					.max(Date::compareTo)
+					.ifPresent(hasta -> contadorNoLeidosRepository.avanzarBroadcastsLeidos(actor.getId(), hasta));
+		}
+		return marcados;
+	}
+
+	@Transactional
+	public int marcarTodosLeidos(Actor actor) {
+		Date ahora = new Date();
+		int marcados = mensajeRepository.marcarTodosLeidos(actor.getId(), ahora);
+		if (marcados > 0) {
+			contadorNoLeidosRepository.restar(actor.getId(), marcados);
+			resumenConversacionRepository.marcarTodasLeidas(actor.getId());
+		}
+		contadorNoLeidosRepository.avanzarBroadcastsLeidos(actor.getId(), ahora);
+		return marcados;
 	}
 
 	// Enviar mensaje de broadcast
-	public List<Mensaje> enviarBroadcast(int idRemitente, String asunto, String cuerpo) {
+	public Broadcast enviarBroadcast(int idRemitente, String asunto, String cuerpo) {
 		Actor remitente = actorRepository.findById(idRemitente)
 				.orElseThrow(() -> new RuntimeException("Remitente no encontrado"));
+		return enviarBroadcast(remitente, asunto, cuerpo);
+	}
 
-		List<Actor> todosActores = actorRepository.findAll();
-		List<Mensaje> mensajes = new java.util.ArrayList<>();
+	// Un broadcast es una sola fila, tenga los destinatarios que tenga: cada bandeja lo recoge al leerse
+	public Broadcast enviarBroadcast(Actor remitente, String asunto, String cuerpo) {
+		Broadcast broadcast = broadcastRepository.save(new Broadcast(remitente, new Date(), asunto, cuerpo));
+		centralEventos.publicarATodos(remitente.getId(), "mensaje", evento(MensajeVista.de(broadcast)));
+		return broadcast;
+	}
 
-		for (Actor destinatario : todosActores) {
-			if (destinatario.getId() != remitente.getId()) {
-				Mensaje nuevo = new Mensaje(remitente, destinatario, new Date(), asunto, cuerpo);
-				mensajes.add(nuevo);
-			}
+	// Estado de un broadcast: no hay entrega que esperar (cada bandeja lo ve en cuanto existe),
+	// así que "entregados" son los actores que lo tienen en su bandeja ahora mismo
+	public Optional<Map<String, Object>> findEstadoBroadcast(int id) {
+		return broadcastRepository.findById(id).map(broadcast -> {
+			Map<String, Object> estado = new LinkedHashMap<>();
+			estado.put("id", broadcast.getId());
+			estado.put("asunto", broadcast.getAsunto());
+			estado.put("fechaEnvio", broadcast.getFechaEnvio());
+			estado.put("entregados", actorRepository.countDestinatariosBroadcast(broadcast.getRemitente().getId(),
+					broadcast.getFechaEnvio()));
+			estado.put("pendientes", 0);
+			return estado;
+		});
+	}
+
+	// Retirar un broadcast lo quita de todas las bandejas a la vez; false si no existe
+	public boolean retirarBroadcast(int id) {
+		if (!broadcastRepository.existsById(id)) {
+			return false;
 		}
+		broadcastRepository.deleteById(id);
+		centralEventos.publicarATodos(0, "broadcastRetirado", Map.of("id", id));
+		return true;
+	}
 
-		mensajeRepository.saveAll(mensajes);
-		return mensajes;
+	// Lo que se empuja a los clientes conectados: lo justo para pintar el aviso, el resto está en la bandeja
+	private static Map<String, Object> evento(MensajeVista mensaje) {
+		Map<String, Object> evento = new LinkedHashMap<>();
+		evento.put("id", mensaje.id());
+		evento.put("remitenteId", mensaje.remitente().id());
+		evento.put("remitente", mensaje.remitente().username());
+		evento.put("asunto", mensaje.asunto());
+		evento.put("fechaEnvio", mensaje.fechaEnvio());
+		evento.put("broadcast", mensaje.broadcast());
+		return evento;
 	}
-}
\ No newline at end of file
+}
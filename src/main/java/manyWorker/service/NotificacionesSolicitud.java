@@ -0,0 +1,305 @@
+package manyWorker.service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import manyWorker.entity.Actor;
+import manyWorker.entity.EventoSolicitud;
+import manyWorker.entity.Solicitud;
+import manyWorker.entity.Tarea;
+import manyWorker.repository.EventoSolicitudRepository;
+import manyWorker.repository.SolicitudRepository;
+
+// Notificaciones de los cambios de estado de las solicitudes (outbox): SolicitudService solo guarda un
+// EventoSolicitud en su transacción y este componente, en un hilo propio, los convierte en los mensajes
+// al cliente y al trabajador (con su evento en tiempo real). Se despierta al confirmarse la transacción
+// y, por si acaso (reintentos, otro nodo, un reinicio), cada "intervalo-ms".
+// Cada lote se reserva con SKIP LOCKED y se despacha en una sola transacción; si falla, se repite evento
+// a evento para aislar el que da problemas, que se reintenta con espera creciente y, tras "max-intentos",
+// se marca como fallido. La entrega es "al menos una vez": si un nodo cae a mitad de un lote, otro lo
+// repite cuando vence la reserva.
+@Component
+public class NotificacionesSolicitud {
+
+	private static final Logger log = LoggerFactory.getLogger(NotificacionesSolicitud.class);
+
+	@Autowired
+	private EventoSolicitudRepository eventoSolicitudRepository;
+
+	@Autowired
+	private SolicitudRepository solicitudRepository;
+
+	@Autowired
+	private MensajeService mensajeService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Value("${manyworker.solicitudes.notificaciones.activo:true}")
+	private boolean activo;
+
+	@Value("${manyworker.solicitudes.notificaciones.lote:100}")
+	private int lote;
+
+	@Value("${manyworker.solicitudes.notificaciones.reserva-ms:60000}")
+	private long reservaMs;
+
+	@Value("${manyworker.solicitudes.notificaciones.reintento-ms:10000}")
+	private long reintentoMs;
+
+	@Value("${manyworker.solicitudes.notificaciones.max-intentos:6}")
+	private int maxIntentos;
+
+	private final ExecutorService hilo = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "notificaciones-solicitud");
+		t.setDaemon(true);
+		return t;
+	});
+	// Hay una pasada en cola: los avisos que llegan mientras tanto no encolan otra
+	private final AtomicBoolean programado = new AtomicBoolean();
+
+	private final AtomicLong registrados = new AtomicLong();
+	private final AtomicLong despachados = new AtomicLong();
+	private final AtomicLong descartados = new AtomicLong();
+	private final AtomicLong lotes = new AtomicLong();
+	private final AtomicLong reintentos = new AtomicLong();
+	private final AtomicLong fallidos = new AtomicLong();
+	private final AtomicLong errores = new AtomicLong();
+
+	// Guarda el evento en la transacción en curso; el despacho arranca cuando esta se confirma
+	public void registrar(Solicitud solicitud, String tipo) {
+		eventoSolicitudRepository.save(new EventoSolicitud(solicitud.getId(), tipo));
+		registrados.incrementAndGet();
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					despertar();
+				}
+			});
+		} else {
+			despertar();
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${manyworker.solicitudes.notificaciones.intervalo-ms:5000}")
+	public void despertar() {
+		if (activo && programado.compareAndSet(false, true)) {
+			hilo.execute(() -> {
+				programado.set(false);
+				despachar();
+			});
+		}
+	}
+
+	// Lotes seguidos hasta que no quede nada listo
+	void despachar() {
+		try {
+			List<EventoSolicitud> eventos;
+			do {
+				eventos = reservar();
+				if (!eventos.isEmpty()) {
+					despachar(eventos);
+				}
+			} while (eventos.size() == lote);
+		} catch (DataAccessException e) {
+			errores.incrementAndGet();
+			log.warn("Despacho de notificaciones de solicitudes interrumpido: {}", e.getMessage());
+		}
+	}
+
+	// Reserva un lote adelantando su siguiente intento: ni este nodo ni otro lo vuelve a coger mientras dura
+	private List<EventoSolicitud> reservar() {
+		return transactionTemplate.execute(estado -> {
+			List<EventoSolicitud> eventos = eventoSolicitudRepository.findListosParaReservar(new Date(), lote);
+			if (!eventos.isEmpty()) {
+				eventoSolicitudRepository.reservar(ids(eventos), new Date(System.currentTimeMillis() + reservaMs));
+			}
+			return eventos;
+		});
+	}
+
+	private void despachar(List<EventoSolicitud> eventos) {
+		try {
+			transactionTemplate.executeWithoutResult(estado -> enviar(eventos));
+			lotes.incrementAndGet();
+		} catch (RuntimeException e) {
+			if (eventos.size() == 1) {
+				fallo(eventos.get(0), e);
+				return;
+			}
+			for (EventoSolicitud evento : eventos) {
+				try {
+					transactionTemplate.executeWithoutResult(estado -> enviar(List.of(evento)));
+				} catch (RuntimeException ex) {
+					fallo(evento, ex);
+				}
+			}
+		}
+	}
+
+	// Una consulta para las solicitudes del lote, dos mensajes por evento y un borrado para todos
+	private void enviar(List<EventoSolicitud> eventos) {
+		Map<Integer, Solicitud> solicitudes = solicitudRepository.findParaNotificar(
+				eventos.stream().map(EventoSolicitud::getSolicitudId).distinct().toList())
+				.stream().collect(Collectors.toMap(Solicitud::getId, Function.identity()));
+		int sinSolicitud = 0;
+		for (EventoSolicitud evento : eventos) {
+			Solicitud solicitud = solicitudes.get(evento.getSolicitudId());
+			if (solicitud == null) {
+				// Se ha borrado antes de notificarla: no hay nada que contar
+				sinSolicitud++;
+				continue;
+			}
+			notificar(solicitud, evento.getTipo());
+		}
+		eventoSolicitudRepository.deleteAllByIdInBatch(ids(eventos));
+		despachados.addAndGet(eventos.size() - sinSolicitud);
+		descartados.addAndGet(sinSolicitud);
+	}
+
+	private void notificar(Solicitud solicitud, String tipoCambio) {
+		Tarea tarea = solicitud.getTarea();
+		Actor cliente = tarea.getCliente();
+		Actor trabajador = solicitud.getTrabajador();
+		String nombreCliente = cliente.getNombre() + " " + cliente.getApellido();
+		String nombreTrabajador = trabajador.getNombre() + " " + trabajador.getApellido();
+		String descripcionTarea = tarea.getDescripcion();
+		double precio = solicitud.getPrecioOfrecido();
+
+		// Mensaje para el cliente (remitente: trabajador)
+		mensajeService.enviarMensaje(trabajador, cliente, obtenerAsuntoCliente(tipoCambio),
+				obtenerCuerpoCliente(tipoCambio, nombreTrabajador, descripcionTarea, precio));
+
+		// Mensaje para el trabajador (remitente: cliente)
+		mensajeService.enviarMensaje(cliente, trabajador, obtenerAsuntoTrabajador(tipoCambio),
+				obtenerCuerpoTrabajador(tipoCambio, nombreCliente, descripcionTarea, precio, solicitud.getComentario()));
+	}
+
+	// Espera creciente (reintento-ms, el doble, ...) hasta agotar los intentos
+	private void fallo(EventoSolicitud evento, RuntimeException e) {
+		int intentos = evento.getIntentos() + 1;
+		boolean agotado = intentos >= maxIntentos;
+		Date siguiente = new Date(System.currentTimeMillis() + reintentoMs * (1L << Math.min(intentos - 1, 20)));
+		String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+		if (error.length() > 1000) {
+			error = error.substring(0, 1000);
+		}
+		if (agotado) {
+			fallidos.incrementAndGet();
+			log.warn("Notificación de la solicitud {} ({}) descartada tras {} intentos: {}",
+					evento.getSolicitudId(), evento.getTipo(), intentos, error);
+		} else {
+			reintentos.incrementAndGet();
+		}
+		String mensajeError = error;
+		try {
+			transactionTemplate.executeWithoutResult(estado -> eventoSolicitudRepository.registrarFallo(
+					evento.getId(), intentos, siguiente, agotado, mensajeError));
+		} catch (DataAccessException ex) {
+			// Se queda reservado: vuelve a intentarse cuando venza la reserva
+			errores.incrementAndGet();
+			log.warn("No se pudo registrar el fallo de la notificación {}: {}", evento.getId(), ex.getMessage());
+		}
+	}
+
+	private static List<Integer> ids(List<EventoSolicitud> eventos) {
+		List<Integer> ids = new ArrayList<>(eventos.size());
+		for (EventoSolicitud evento : eventos) {
+			ids.add(evento.getId());
+		}
+		return ids;
+	}
+
+	// Métodos auxiliares simples para construir mensajes
+	private String obtenerAsuntoCliente(String tipoCambio) {
+		switch (tipoCambio) {
+			case "SOLICITUD_ACEPTADA": return "Tu solicitud ha sido ACEPTADA";
+			case "SOLICITUD_RECHAZADA": return "Tu solicitud ha sido RECHAZADA";
+			default: return "Actualización de solicitud";
+		}
+	}
+
+	private String obtenerCuerpoCliente(String tipoCambio, String nombreTrabajador, String descripcionTarea, double precio) {
+		switch (tipoCambio) {
+			case "SOLICITUD_ACEPTADA":
+				return "El trabajador " + nombreTrabajador + " ha aceptado tu solicitud para: '" +
+						descripcionTarea + "'. Precio: " + precio + "€. Contacta al trabajador para coordinar.";
+			case "SOLICITUD_RECHAZADA":
+				return "El trabajador " + nombreTrabajador + " ha rechazado tu solicitud para: '" +
+						descripcionTarea + "'. Puedes buscar otros trabajadores.";
+			default:
+				return "Hay una actualización en tu solicitud para: " + descripcionTarea;
+		}
+	}
+
+	private String obtenerAsuntoTrabajador(String tipoCambio) {
+		switch (tipoCambio) {
+			case "SOLICITUD_CREADA": return "Nueva solicitud recibida";
+			case "SOLICITUD_ACEPTADA": return "Has aceptado una solicitud";
+			case "SOLICITUD_RECHAZADA": return "Has rechazado una solicitud";
+			default: return "Actualización de solicitud";
+		}
+	}
+
+	private String obtenerCuerpoTrabajador(String tipoCambio, String nombreCliente, String descripcionTarea, double precio, String comentario) {
+		switch (tipoCambio) {
+			case "SOLICITUD_CREADA":
+				return "Tienes una nueva solicitud para: '" + descripcionTarea + "'. Cliente: " +
+						nombreCliente + ". Precio ofrecido: " + precio + "€. Comentario: " + comentario;
+			case "SOLICITUD_ACEPTADA":
+				return "Has aceptado la solicitud para: '" + descripcionTarea + "'. Cliente: " +
+						nombreCliente + ". Precio: " + precio + "€. Contacta al cliente.";
+			case "SOLICITUD_RECHAZADA":
+				return "Has rechazado la solicitud para: '" + descripcionTarea + "'. Cliente: " + nombreCliente;
+			default:
+				return "Hay una actualización en la solicitud para: " + descripcionTarea;
+		}
+	}
+
+	@PreDestroy
+	public void detener() {
+		hilo.shutdownNow();
+	}
+
+	public Map<String, Object> getMetricas() {
+		Map<String, Object> metricas = new LinkedHashMap<>();
+		metricas.put("activo", activo);
+		metricas.put("registrados", registrados.get());
+		metricas.put("despachados", despachados.get());
+		metricas.put("descartados", descartados.get());
+		metricas.put("lotes", lotes.get());
+		metricas.put("reintentos", reintentos.get());
+		metricas.put("fallidos", fallidos.get());
+		metricas.put("errores", errores.get());
+		try {
+			metricas.put("pendientes", eventoSolicitudRepository.countByFallidoFalse());
+			metricas.put("enFallo", eventoSolicitudRepository.countByFallidoTrue());
+		} catch (DataAccessException e) {
+			metricas.put("pendientes", null);
+			metricas.put("enFallo", null);
+		}
+		return metricas;
+	}
+}
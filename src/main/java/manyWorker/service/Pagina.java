@@ -0,0 +1,81 @@
+package manyWorker.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+// Página de una consulta por cursor (keyset): en vez de OFFSET se pide "lo siguiente a la última fila vista",
+// así el coste de cada página no crece con el tamaño del buzón. "siguiente" es null en la última página.
+public record Pagina<T>(List<T> elementos, String siguiente) {
+
+	public static final int LIMITE_POR_DEFECTO = 50;
+	public static final int LIMITE_MAXIMO = 200;
+
+	// Posición de la última fila de una página, ordenada por (fecha, id) descendente
+	public record Cursor(Date fecha, int id) {
+
+		// Valor opaco para el cliente: base64 de "milisegundos:id"
+		public String codificar() {
+			return Pagina.codificar(fecha.getTime() + ":" + id);
+		}
+
+		// null si no hay cursor (primera página); IllegalArgumentException si está mal formado
+		public static Cursor decodificar(String cursor) {
+			String[] partes = Pagina.decodificar(cursor);
+			if (partes == null) {
+				return null;
+			}
+			try {
+				return new Cursor(new Date(Long.parseLong(partes[0])), Integer.parseInt(partes[1]));
+			} catch (RuntimeException e) {
+				throw new IllegalArgumentException("Cursor inválido");
+			}
+		}
+	}
+
+	// Lo mismo para resultados ordenados por relevancia (rango, id) descendente (búsquedas)
+	public record CursorRango(float rango, int id) {
+
+		public String codificar() {
+			return Pagina.codificar(rango + ":" + id);
+		}
+
+		public static CursorRango decodificar(String cursor) {
+			String[] partes = Pagina.decodificar(cursor);
+			if (partes == null) {
+				return null;
+			}
+			try {
+				return new CursorRango(Float.parseFloat(partes[0]), Integer.parseInt(partes[1]));
+			} catch (RuntimeException e) {
+				throw new IllegalArgumentException("Cursor inválido");
+			}
+		}
+	}
+
+	private static String codificar(String valor) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+	}
+
+	// Las dos partes de "valor:id"; null si no hay cursor
+	private static String[] decodificar(String cursor) {
+		if (cursor == null || cursor.isBlank()) {
+			return null;
+		}
+		try {
+			String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			int separador = valor.indexOf(':');
+			return new String[] { valor.substring(0, separador), valor.substring(separador + 1) };
+		} catch (RuntimeException e) {
+			throw new IllegalArgumentException("Cursor inválido");
+		}
+	}
+
+	public static int limitar(Integer limite) {
+		if (limite == null || limite <= 0) {
+			return LIMITE_POR_DEFECTO;
+		}
+		return Math.min(limite, LIMITE_MAXIMO);
+	}
+}
@@ -5,12 +5,12 @@ import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import manyWorker.entity.Actor;
 import manyWorker.entity.PerfilSocial;
 import manyWorker.repository.PerfilSocialRepository;
+import manyWorker.security.ActorActual;
 
 @Service
 public class PerfilSocialService {
@@ -18,6 +18,9 @@ public class PerfilSocialService {
 	@Autowired
 	private PerfilSocialRepository perfilSocialRepository;
 
+	@Autowired
+	private ActorActual actorActual;
+
 	public Optional<PerfilSocial> findById(int id) {
 		return this.perfilSocialRepository.findById(id);
 	}
@@ -39,10 +42,8 @@ public class PerfilSocialService {
 
 	    PerfilSocial ps = oPerfilSocial.get();
 
-	    Actor actorAutenticado = (Actor) SecurityContextHolder
-	            .getContext()
-	            .getAuthentication()
-	            .getPrincipal();
+	    Actor actorAutenticado = actorActual.obtener()
+	            .orElseThrow(() -> new AccessDeniedException("Usuario autenticado no encontrado"));
 
 	    if (!actorAutenticado.getNumeroPerfiles().contains(ps)) {
 	        throw new AccessDeniedException("No tienes permiso para modificar este perfil social");
@@ -64,10 +65,8 @@ public class PerfilSocialService {
 
 	    PerfilSocial ps = oPerfilSocial.get();
 
-	    Actor actorAutenticado = (Actor) SecurityContextHolder
-	            .getContext()
-	            .getAuthentication()
-	            .getPrincipal();
+	    Actor actorAutenticado = actorActual.obtener()
+	            .orElseThrow(() -> new AccessDeniedException("Usuario autenticado no encontrado"));
 
 	    if (!actorAutenticado.getNumeroPerfiles().contains(ps)) {
 	        throw new AccessDeniedException("No tienes permiso para eliminar este perfil social");
@@ -5,8 +5,11 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import jakarta.transaction.Transactional;
+
 import manyWorker.entity.Solicitud;
 import manyWorker.entity.Tarea;
 import manyWorker.repository.SolicitudRepository;
@@ -20,7 +23,7 @@ public class SolicitudService {
     private SolicitudRepository solicitudRepository;
 
     @Autowired
-    private MensajeService mensajeService;
+    private NotificacionesSolicitud notificacionesSolicitud;
 
     @Autowired
     private TareaRepository tareaRepository;
@@ -44,13 +47,16 @@ public class SolicitudService {
     }
 
     // Crear nueva solicitud
+    // Una consulta (la tarea con su categoría y su cliente) y los inserts: el trabajador no se carga, va por
+    // referencia, y si no existe lo rechaza la clave ajena al insertar.
+    @Transactional
     public Solicitud crear(Solicitud solicitud) {
-    	solicitud.setTrabajador(trabajadorRepository.findById(solicitud.getTrabajador().getId()).orElse(null));
-        solicitud.setTarea(tareaRepository.findById(solicitud.getTarea().getId()).orElse(null));
-    	
     	if (solicitud.getTrabajador() == null) {
             throw new IllegalArgumentException("La solicitud debe tener un trabajador asignado");
         }
+    	solicitud.setTrabajador(trabajadorRepository.getReferenceById(solicitud.getTrabajador().getId()));
+        solicitud.setTarea(solicitud.getTarea() == null ? null
+                : tareaRepository.findConCategoriaYClienteById(solicitud.getTarea().getId()).orElse(null));
 
         if (solicitud.getTarea() != null && esTareaDeReparacion(solicitud.getTarea())) {
             validarSolicitudReparacion(solicitud);
@@ -66,15 +72,21 @@ public class SolicitudService {
         solicitud.setFechaRegistro(LocalDateTime.now());
         solicitud.setEstado(Solicitud.EstadoSolicitud.PENDIENTE);
         
-        Solicitud savedSolicitud = solicitudRepository.save(solicitud);
+        Solicitud savedSolicitud;
+        try {
+            savedSolicitud = solicitudRepository.saveAndFlush(solicitud);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException("El trabajador " + solicitud.getTrabajador().getId() + " no existe");
+        }
         
-        // Notificar al trabajador que tiene nueva solicitud
-        notificarCambioEstado(savedSolicitud, "SOLICITUD_CREADA");
+        // Notificar al trabajador que tiene nueva solicitud (se envía después, ver NotificacionesSolicitud)
+        notificacionesSolicitud.registrar(savedSolicitud, "SOLICITUD_CREADA");
         
         return savedSolicitud;
     }
 
     // Aceptar solicitud
+    @Transactional
     public Solicitud aceptar(int id) {
         Solicitud solicitud = solicitudRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Solicitud no encontrada"));
@@ -82,13 +94,14 @@ public class SolicitudService {
         
         Solicitud savedSolicitud = solicitudRepository.save(solicitud);
         
-        // Notificar a ambos del cambio de estado
-        notificarCambioEstado(savedSolicitud, "SOLICITUD_ACEPTADA");
+        // Notificar a ambos del cambio de estado (se envía después, ver NotificacionesSolicitud)
+        notificacionesSolicitud.registrar(savedSolicitud, "SOLICITUD_ACEPTADA");
         
         return savedSolicitud;
     }
 
     // Rechazar solicitud
+    @Transactional
     public Solicitud rechazar(int id) {
         Solicitud solicitud = solicitudRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Solicitud no encontrada"));
@@ -96,92 +109,12 @@ public class SolicitudService {
         
         Solicitud savedSolicitud = solicitudRepository.save(solicitud);
         
-        // Notificar a ambos del cambio de estado
-        notificarCambioEstado(savedSolicitud, "SOLICITUD_RECHAZADA");
+        // Notificar a ambos del cambio de estado (se envía después, ver NotificacionesSolicitud)
+        notificacionesSolicitud.registrar(savedSolicitud, "SOLICITUD_RECHAZADA");
         
         return savedSolicitud;
     }
 
-    // método para notificar cambios de estado
-    private void notificarCambioEstado(Solicitud solicitud, String tipoCambio) {
-        try {
-            Tarea tarea = solicitud.getTarea();
-            if (tarea == null || tarea.getCliente() == null || solicitud.getTrabajador() == null) {
-                return;
-            }
-
-            int clienteId = tarea.getCliente().getId();
-            int trabajadorId = solicitud.getTrabajador().getId();
-            String nombreCliente = tarea.getCliente().getNombre() + " " + tarea.getCliente().getApellido();
-            String nombreTrabajador = solicitud.getTrabajador().getNombre() + " " + solicitud.getTrabajador().getApellido();
-            String descripcionTarea = tarea.getDescripcion();
-            double precio = solicitud.getPrecioOfrecido();
-
-            // Mensaje para el cliente
-            String asuntoCliente = obtenerAsuntoCliente(tipoCambio);
-            String cuerpoCliente = obtenerCuerpoCliente(tipoCambio, nombreTrabajador, descripcionTarea, precio);
-            
-            // Mensaje para el trabajador  
-            String asuntoTrabajador = obtenerAsuntoTrabajador(tipoCambio);
-            String cuerpoTrabajador = obtenerCuerpoTrabajador(tipoCambio, nombreCliente, descripcionTarea, precio, solicitud.getComentario());
-
-            // Enviar mensaje al cliente (remitente: trabajador)
-            mensajeService.enviarMensaje(trabajadorId, clienteId, asuntoCliente, cuerpoCliente);
-            
-            // Enviar mensaje al trabajador (remitente: cliente)
-            mensajeService.enviarMensaje(clienteId, trabajadorId, asuntoTrabajador, cuerpoTrabajador);
-
-        } catch (Exception e) {
-            System.err.println("Error enviando notificación: " + e.getMessage());
-        }
-    }
-
-    // Métodos auxiliares simples para construir mensajes
-    private String obtenerAsuntoCliente(String tipoCambio) {
-        switch (tipoCambio) {
-            case "SOLICITUD_ACEPTADA": return "Tu solicitud ha sido ACEPTADA";
-            case "SOLICITUD_RECHAZADA": return "Tu solicitud ha sido RECHAZADA";
-            default: return "Actualización de solicitud";
-        }
-    }
-
-    private String obtenerCuerpoCliente(String tipoCambio, String nombreTrabajador, String descripcionTarea, double precio) {
-        switch (tipoCambio) {
-            case "SOLICITUD_ACEPTADA": 
-                return "El trabajador " + nombreTrabajador + " ha aceptado tu solicitud para: '" + 
-                       descripcionTarea + "'. Precio: " + precio + "€. Contacta al trabajador para coordinar.";
-            case "SOLICITUD_RECHAZADA":
-                return "El trabajador " + nombreTrabajador + " ha rechazado tu solicitud para: '" + 
-                       descripcionTarea + "'. Puedes buscar otros trabajadores.";
-            default: 
-                return "Hay una actualización en tu solicitud para: " + descripcionTarea;
-        }
-    }
-
-    private String obtenerAsuntoTrabajador(String tipoCambio) {
-        switch (tipoCambio) {
-            case "SOLICITUD_CREADA": return "Nueva solicitud recibida";
-            case "SOLICITUD_ACEPTADA": return "Has aceptado una solicitud";
-            case "SOLICITUD_RECHAZADA": return "Has rechazado una solicitud";
-            default: return "Actualización de solicitud";
-        }
-    }
-
-    private String obtenerCuerpoTrabajador(String tipoCambio, String nombreCliente, String descripcionTarea, double precio, String comentario) {
-        switch (tipoCambio) {
-            case "SOLICITUD_CREADA":
-                return "Tienes una nueva solicitud para: '" + descripcionTarea + "'. Cliente: " + 
-                       nombreCliente + ". Precio ofrecido: " + precio + "€. Comentario: " + comentario;
-            case "SOLICITUD_ACEPTADA":
-                return "Has aceptado la solicitud para: '" + descripcionTarea + "'. Cliente: " + 
-                       nombreCliente + ". Precio: " + precio + "€. Contacta al cliente.";
-            case "SOLICITUD_RECHAZADA":
-                return "Has rechazado la solicitud para: '" + descripcionTarea + "'. Cliente: " + nombreCliente;
-            default:
-                return "Hay una actualización en la solicitud para: " + descripcionTarea;
-        }
-    }
-
     // Métodos de validación existentes
     private boolean esTareaDeReparacion(Tarea tarea) {
         if (tarea.getCategoria() == null) {
@@ -0,0 +1,138 @@
+package manyWorker.service;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+
+import jakarta.transaction.Transactional;
+import manyWorker.entity.Actor;
+import manyWorker.entity.TokenRefresco;
+import manyWorker.repository.ActorRepository;
+import manyWorker.repository.TokenRefrescoRepository;
+import manyWorker.security.ActorPrincipal;
+import manyWorker.security.CacheTTL;
+import manyWorker.security.JWTUtils;
+
+// Tokens de refresco rotativos: cada uso devuelve un token de acceso nuevo y un token de refresco nuevo,
+// y el anterior queda inutilizado. Si se presenta uno ya usado se asume que ha sido robado
+// y se revocan todos los del actor. No hay BCrypt en este camino.
+@Service
+public class TokenRefrescoService {
+
+	// Datos mínimos de un token de refresco para resolverlo sin ir a la BD
+	private record Entrada(int id, int actorId, long expiraEn) {
+	}
+
+	private static final SecureRandom RANDOM = new SecureRandom();
+
+	@Autowired
+	private TokenRefrescoRepository tokenRefrescoRepository;
+
+	@Autowired
+	private ActorRepository actorRepository;
+
+	@Autowired
+	private JWTUtils jwtUtils;
+
+	private final long duracionMillis;
+	private final CacheTTL<String, Entrada> cache;
+
+	public TokenRefrescoService(@Value("${manyworker.jwt.duracion-refresco-dias:14}") long duracionDias,
+			@Value("${manyworker.jwt.cache-refresco.tamano:10000}") int tamanoCache) {
+		this.duracionMillis = duracionDias * 86400 * 1000L;
+		this.cache = new CacheTTL<>(tamanoCache, this.duracionMillis);
+	}
+
+	// Emite un token de refresco nuevo para el actor y devuelve su valor en claro (solo se ve esta vez)
+	public String emitir(int actorId) {
+		byte[] bytes = new byte[32];
+		RANDOM.nextBytes(bytes);
+		String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+		String hash = JWTUtils.sha256(token);
+
+		Date ahora = new Date();
+		Date expiracion = new Date(ahora.getTime() + duracionMillis);
+		TokenRefresco guardado = tokenRefrescoRepository
+				.save(new TokenRefresco(hash, actorRepository.getReferenceById(actorId), ahora, expiracion));
+		cache.putHasta(hash, new Entrada(guardado.getId(), actorId, expiracion.getTime()), expiracion.getTime());
+		return token;
+	}
+
+	// Cambia un token de refresco por un token de acceso nuevo y otro token de refresco.
+	// Los fallos no deshacen la transacción para que la revocación por reutilización se mantenga.
+	@Transactional(dontRollbackOn = BadCredentialsException.class)
+	public Map<String, Object> rotar(String tokenRefresco) {
+		String hash = JWTUtils.sha256(tokenRefresco);
+		Entrada entrada = buscar(hash)
+				.orElseThrow(() -> new BadCredentialsException("Token de refresco no válido"));
+		cache.invalidar(hash);
+
+		if (entrada.expiraEn() <= System.currentTimeMillis()) {
+			throw new BadCredentialsException("El token de refresco ha caducado");
+		}
+		if (tokenRefrescoRepository.revocarSiVigente(entrada.id()) == 0) {
+			// Ya se había usado: posible robo, se cortan todas las sesiones de refresco del actor
+			revocarTodos(entrada.actorId());
+			throw new BadCredentialsException("El token de refresco ya fue utilizado");
+		}
+
+		Actor actor = actorRepository.findById(entrada.actorId())
+				.orElseThrow(() -> new BadCredentialsException("Usuario no encontrado"));
+		ActorPrincipal principal = new ActorPrincipal(actor);
+
+		Map<String, Object> respuesta = new LinkedHashMap<>();
+		respuesta.put("token", jwtUtils.generateToken(principal));
+		respuesta.put("refreshToken", emitir(actor.getId()));
+		respuesta.put("expiresIn", jwtUtils.getDuracionAccesoSegundos());
+		respuesta.put("username", actor.getUsername());
+		respuesta.put("rol", actor.getRol().toString());
+		respuesta.put("id", actor.getId());
+		return respuesta;
+	}
+
+	// Invalida un token de refresco concreto (logout)
+	@Transactional
+	public void revocar(String tokenRefresco) {
+		String hash = JWTUtils.sha256(tokenRefresco);
+		cache.invalidar(hash);
+		tokenRefrescoRepository.findByHash(hash).ifPresent(t -> tokenRefrescoRepository.revocarSiVigente(t.getId()));
+	}
+
+	@Transactional
+	public void revocarTodos(int actorId) {
+		tokenRefrescoRepository.revocarTodosDelActor(actorId);
+	}
+
+	// Limpieza diaria de los tokens caducados
+	@Scheduled(cron = "${manyworker.jwt.limpieza-refresco-cron:0 30 4 * * *}")
+	@Transactional
+	public void borrarCaducados() {
+		tokenRefrescoRepository.borrarCaducados(new Date());
+	}
+
+	public Map<String, Object> getMetricas() {
+		Map<String, Object> metricas = new LinkedHashMap<>();
+		metricas.put("entradas", cache.size());
+		metricas.put("aciertos", cache.getAciertos());
+		metricas.put("fallos", cache.getFallos());
+		return metricas;
+	}
+
+	private Optional<Entrada> buscar(String hash) {
+		Entrada entrada = cache.get(hash);
+		if (entrada != null) {
+			return Optional.of(entrada);
+		}
+		return tokenRefrescoRepository.findByHash(hash)
+				.map(t -> new Entrada(t.getId(), t.getActor().getId(), t.getExpiracion().getTime()));
+	}
+}
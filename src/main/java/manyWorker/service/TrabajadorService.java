@@ -19,6 +19,9 @@ public class TrabajadorService {
 
 	@Autowired
 	private PasswordEncoder passwordEncoder;
+
+	@Autowired
+	private ActorService actorService;
 	
 	public Optional<Trabajador> findByUsername(String username) {
         return trabajadorRepository.findByUsername(username);
@@ -64,13 +67,17 @@ public class TrabajadorService {
 			
 			// NO llamamos a save() porque ese método reencripta el password.
 			// Guardamos directamente con el repository.
-			return this.trabajadorRepository.save(t);
+			Trabajador actualizado = this.trabajadorRepository.save(t);
+			actorService.invalidarCache(actualizado);
+			return actualizado;
 		}
 		return null;
 	}
 
 	public void delete(int id) {
+		Optional<Trabajador> eliminado = this.trabajadorRepository.findById(id);
 		this.trabajadorRepository.deleteById(id);
+		eliminado.ifPresent(actorService::actorEliminado);
 	}
 	
 	public boolean existsById(int id) {
@@ -0,0 +1,85 @@
+-- Objetos de PostgreSQL que Hibernate (ddl-auto=update) no sabe crear. Lo ejecuta EsquemaPostgres en cada
+-- arranque, después de que Hibernate actualice las tablas, así que todo tiene que ser idempotente.
+
+-- Índices de las bandejas y conversaciones (ver MensajeRepository). Van aquí y no en @Index porque
+-- particiones-postgres.sql rehace mensaje particionada y Hibernate no ve los índices de esas tablas;
+-- creados en la tabla particionada, PostgreSQL los crea en cada partición.
+CREATE INDEX IF NOT EXISTS idx_mensaje_destinatario_fecha ON mensaje (destinatario_id, fecha_envio, id);
+CREATE INDEX IF NOT EXISTS idx_mensaje_remitente_fecha ON mensaje (remitente_id, fecha_envio, id);
+CREATE INDEX IF NOT EXISTS idx_mensaje_conversacion_fecha ON mensaje (conversacion, fecha_envio, id);
+
+-- Búsqueda de texto completo en mensajes y broadcasts (ver MensajeRepository.buscar): columna tsvector
+-- generada con el diccionario español (asunto con más peso que el cuerpo) e índice GIN
+ALTER TABLE mensaje ADD COLUMN IF NOT EXISTS busqueda tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('spanish', coalesce(asunto, '')), 'A') || setweight(to_tsvector('spanish', coalesce(cuerpo, '')), 'B')
+) STORED;
+CREATE INDEX IF NOT EXISTS idx_mensaje_busqueda ON mensaje USING GIN (busqueda);
+
+ALTER TABLE broadcast ADD COLUMN IF NOT EXISTS busqueda tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('spanish', coalesce(asunto, '')), 'A') || setweight(to_tsvector('spanish', coalesce(cuerpo, '')), 'B')
+) STORED;
+CREATE INDEX IF NOT EXISTS idx_broadcast_busqueda ON broadcast USING GIN (busqueda);
+
+-- Conversaciones (ver Mensaje.claveConversacion y ResumenConversacion). Los mensajes anteriores a la
+-- columna conversacion se rellenan aquí; el índice parcial queda vacío en cuanto no quedan, así que
+-- en los siguientes arranques la comprobación no recorre la tabla.
+CREATE INDEX IF NOT EXISTS idx_mensaje_sin_conversacion ON mensaje (id) WHERE conversacion IS NULL;
+UPDATE mensaje SET conversacion = (LEAST(remitente_id, destinatario_id)::bigint << 32) | GREATEST(remitente_id, destinatario_id)
+WHERE conversacion IS NULL;
+
+-- Mensajes anteriores a la columna fecha_lectura (ver Mensaje.fechaLectura): se dan por leídos para que
+-- cuadren con ContadorNoLeidos, que empezó a contar desde cero. Solo mientras el contador está vacío: el
+-- primer mensaje enviado crea su fila y a partir de ahí un NULL es un mensaje sin leer de verdad.
+-- La columna no tiene valor por defecto (lo tuvo): un INSERT que no la nombre deja el mensaje sin leer.
+ALTER TABLE mensaje ALTER COLUMN fecha_lectura DROP DEFAULT;
+UPDATE mensaje SET fecha_lectura = fecha_envio
+WHERE fecha_lectura IS NULL AND NOT EXISTS (SELECT 1 FROM contador_no_leidos);
+
+-- Resúmenes de las conversaciones existentes, solo la primera vez (tabla vacía); después los mantiene
+-- MensajeService con cada mensaje. Cada mensaje cuenta para el remitente y, sin leer, para el destinatario.
+-- Si arrancan varios nodos a la vez, todos pueden ver la tabla vacía: el ON CONFLICT hace que el segundo
+-- espere al primero y se salte sus filas en vez de fallar el arranque con la clave duplicada.
+INSERT INTO resumen_conversacion (actor_id, interlocutor_id, ultimo_mensaje_id, fecha_ultimo, no_leidos)
+SELECT p.actor_id, p.interlocutor_id, (array_agg(p.id ORDER BY p.fecha_envio DESC, p.id DESC))[1], max(p.fecha_envio),
+       count(*) FILTER (WHERE p.recibido AND p.fecha_lectura IS NULL)
+FROM (SELECT remitente_id AS actor_id, destinatario_id AS interlocutor_id, id, fecha_envio, fecha_lectura, false AS recibido
+      FROM mensaje WHERE remitente_id <> destinatario_id
+      UNION ALL
+      SELECT destinatario_id, remitente_id, id, fecha_envio, fecha_lectura, true FROM mensaje) p
+WHERE NOT EXISTS (SELECT 1 FROM resumen_conversacion)
+GROUP BY p.actor_id, p.interlocutor_id
+ON CONFLICT (actor_id, interlocutor_id) DO NOTHING;
+
+-- Archivo de mensajes antiguos (ver ArchivoMensajes y MensajeArchivado): misma forma que mensaje, particionado
+-- por mes de envío. Las particiones las crea ArchivoMensajes según las necesita. La clave primaria tiene
+-- que incluir la fecha (clave de partición); el id sigue siendo único porque viene de mensaje.
+CREATE TABLE IF NOT EXISTS mensaje_archivado (
+    id integer NOT NULL,
+    version integer NOT NULL,
+    remitente_id integer NOT NULL,
+    destinatario_id integer NOT NULL,
+    fecha_envio timestamp(6) NOT NULL,
+    fecha_lectura timestamp(6),
+    asunto varchar(255) NOT NULL,
+    cuerpo varchar(255) NOT NULL,
+    conversacion bigint NOT NULL,
+    PRIMARY KEY (id, fecha_envio)
+) PARTITION BY RANGE (fecha_envio);
+CREATE INDEX IF NOT EXISTS idx_mensaje_archivado_destinatario_fecha ON mensaje_archivado (destinatario_id, fecha_envio, id);
+CREATE INDEX IF NOT EXISTS idx_mensaje_archivado_remitente_fecha ON mensaje_archivado (remitente_id, fecha_envio, id);
+CREATE INDEX IF NOT EXISTS idx_mensaje_archivado_conversacion_fecha ON mensaje_archivado (conversacion, fecha_envio, id);
+
+-- Fecha del último mensaje archivado de cada actor (ver ContadorNoLeidos.archivadoHasta) para lo archivado
+-- antes de la columna; después la mantiene ArchivoMensajes. Solo recorre el archivo mientras ningún actor
+-- la tenga, y con GREATEST da igual que lo hagan dos nodos a la vez o que coincida con un archivado.
+INSERT INTO contador_no_leidos (actor_id, no_leidos, archivado_hasta)
+SELECT a.actor_id, 0, max(a.fecha_envio)
+FROM (SELECT remitente_id AS actor_id, fecha_envio FROM mensaje_archivado
+      UNION ALL
+      SELECT destinatario_id, fecha_envio FROM mensaje_archivado) a
+WHERE NOT EXISTS (SELECT 1 FROM contador_no_leidos WHERE archivado_hasta IS NOT NULL)
+GROUP BY a.actor_id
+ON CONFLICT (actor_id) DO UPDATE SET archivado_hasta = GREATEST(contador_no_leidos.archivado_hasta, EXCLUDED.archivado_hasta);
+
+-- Lo que recorre el archivado para encontrar el mes más antiguo pendiente: solo mensajes leídos
+CREATE INDEX IF NOT EXISTS idx_mensaje_archivable ON mensaje (fecha_envio, id) WHERE fecha_lectura IS NOT NULL;
@@ -0,0 +1,33 @@
+-- Mensajes particionados por hash del destinatario (16 particiones): cada bandeja vive en una sola
+-- partición y vacuum y reindexado van partición a partición. Hibernate (ddl-auto=update) crea mensaje
+-- como tabla normal; este bloque la convierte una vez, copiando las filas, en una sola transacción.
+-- Lo ejecuta EsquemaPostgres antes que esquema-postgres.sql (que crea los índices sobre la tabla nueva)
+-- y como una única sentencia: el bloque DO no se puede trocear por ';'.
+DO $$
+DECLARE
+    columnas text;
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = to_regclass('mensaje')) = 'r' THEN
+        ALTER TABLE mensaje RENAME TO mensaje_sin_particionar;
+
+        -- La clave de partición tiene que formar parte de la clave primaria; el id sigue siendo único (secuencia)
+        CREATE TABLE mensaje (
+            LIKE mensaje_sin_particionar INCLUDING DEFAULTS INCLUDING GENERATED,
+            CONSTRAINT mensaje_id_destinatario_pkey PRIMARY KEY (id, destinatario_id)
+        ) PARTITION BY HASH (destinatario_id);
+
+        FOR i IN 0..15 LOOP
+            EXECUTE format('CREATE TABLE mensaje_p%s PARTITION OF mensaje FOR VALUES WITH (MODULUS 16, REMAINDER %s)',
+                lpad(i::text, 2, '0'), i);
+        END LOOP;
+
+        SELECT string_agg(quote_ident(column_name), ', ') INTO columnas
+        FROM information_schema.columns
+        WHERE table_schema = current_schema() AND table_name = 'mensaje_sin_particionar' AND is_generated = 'NEVER';
+        EXECUTE format('INSERT INTO mensaje (%1$s) SELECT %1$s FROM mensaje_sin_particionar', columnas);
+
+        -- Con la tabla vieja se van sus índices; esquema-postgres.sql los vuelve a crear, ya particionados
+        DROP TABLE mensaje_sin_particionar;
+    END IF;
+END
+$$
@@ -0,0 +1,195 @@
+package manyWorker.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mockingDetails;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import manyWorker.entity.Cliente;
+import manyWorker.entity.Mensaje;
+import manyWorker.entity.MensajeVista;
+import manyWorker.entity.Roles;
+import manyWorker.entity.Trabajador;
+import manyWorker.repository.ActorRepository;
+import manyWorker.repository.MensajeRepository;
+import manyWorker.security.ActorActual;
+import manyWorker.security.ActorPrincipal;
+import manyWorker.security.JWTUtils;
+import manyWorker.service.ClienteService;
+import manyWorker.service.MensajeService;
+
+// Comprueba que cada ruta de los controladores consulta al actor autenticado como mucho una vez por petición
+@ExtendWith(MockitoExtension.class)
+class ConsultasActorAutenticadoTest {
+
+	@Mock
+	private ActorRepository actorRepository;
+
+	@Mock
+	private MensajeRepository mensajeRepository;
+
+	@Mock
+	private ClienteService clienteService;
+
+	private Cliente cliente;
+	private Trabajador trabajador;
+	private JWTUtils jwtUtils;
+	private ActorActual actorActual;
+	private MensajeService mensajeService;
+
+	@BeforeEach
+	void setUp() {
+		cliente = new Cliente();
+		cliente.setId(7);
+		cliente.setUsername("juanperez");
+		cliente.setPassword("x");
+		cliente.setRol(Roles.CLIENTE);
+
+		trabajador = new Trabajador();
+		trabajador.setId(8);
+		trabajador.setUsername("pepegotera");
+		trabajador.setPassword("x");
+		trabajador.setRol(Roles.TRABAJADOR);
+
+		actorActual = new ActorActual();
+		ReflectionTestUtils.setField(actorActual, "actorRepository", actorRepository);
+
+		jwtUtils = new JWTUtils(100, 60, 900);
+		ReflectionTestUtils.setField(jwtUtils, "actorActual", actorActual);
+
+		mensajeService = new MensajeService();
+		ReflectionTestUtils.setField(mensajeService, "mensajeRepository", mensajeRepository);
+		ReflectionTestUtils.setField(mensajeService, "actorRepository", actorRepository);
+		ReflectionTestUtils.setField(mensajeService, "actorActual", actorActual);
+
+		lenient().when(actorRepository.findById(7)).thenReturn(Optional.of(cliente));
+		lenient().when(actorRepository.findByUsername("juanperez")).thenReturn(Optional.of(cliente));
+		lenient().when(actorRepository.findByUsername("pepegotera")).thenReturn(Optional.of(trabajador));
+
+		ActorPrincipal principal = new ActorPrincipal(cliente);
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	void clienteFindByIdConsultaUnaVez() {
+		lenient().when(clienteService.findById(7)).thenReturn(Optional.of(cliente));
+
+		clienteController().findById(7);
+
+		assertConsultasActorAutenticado(1);
+	}
+
+	@Test
+	void clienteUpdateYDeleteCompartenLaMismaConsulta() {
+		lenient().when(clienteService.update(anyInt(), any())).thenReturn(cliente);
+		lenient().when(clienteService.existsById(7)).thenReturn(true);
+
+		ClienteController controller = clienteController();
+		controller.update(7, new Cliente());
+		controller.delete(7);
+
+		assertConsultasActorAutenticado(1);
+	}
+
+	@Test
+	void mensajeFindByIdConsultaUnaVez() {
+		Mensaje mensaje = new Mensaje(trabajador, cliente, new Date(), "Asunto", "Cuerpo");
+		mensaje.setId(1);
+		lenient().when(mensajeRepository.findVistaById(1)).thenReturn(Optional.of(MensajeVista.de(mensaje)));
+
+		mensajeController().findById(1);
+
+		assertConsultasActorAutenticado(1);
+	}
+
+	@Test
+	void mensajeEnviarConsultaUnaVez() {
+		lenient().when(mensajeRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+		EnviarMensajeRequest request = new EnviarMensajeRequest();
+		request.usernameDestinatario = "pepegotera";
+		request.asunto = "Hola";
+		request.cuerpo = "¿Cuándo puedes venir?";
+		mensajeController().enviarMensaje(request);
+
+		assertConsultasActorAutenticado(1);
+	}
+
+	@Test
+	void mensajeDeleteConsultaUnaVez() {
+		Mensaje mensaje = new Mensaje(cliente, trabajador, new Date(), "Asunto", "Cuerpo");
+		mensaje.setId(2);
+		lenient().when(mensajeRepository.existsById(2)).thenReturn(true);
+		lenient().when(mensajeRepository.findById(2)).thenReturn(Optional.of(mensaje));
+
+		mensajeController().delete(2);
+
+		assertConsultasActorAutenticado(1);
+	}
+
+	@Test
+	void variosComponentesReutilizanElActorDeLaPeticion() {
+		Mensaje mensaje = new Mensaje(trabajador, cliente, new Date(), "Asunto", "Cuerpo");
+		mensaje.setId(1);
+		lenient().when(mensajeRepository.findVistaById(1)).thenReturn(Optional.of(MensajeVista.de(mensaje)));
+
+		Cliente logueado = jwtUtils.userLogin();
+		mensajeService.findById(1);
+		actorActual.obtener();
+
+		assertEquals(7, logueado.getId());
+		assertConsultasActorAutenticado(1);
+	}
+
+	private ClienteController clienteController() {
+		ClienteController controller = new ClienteController();
+		ReflectionTestUtils.setField(controller, "clienteService", clienteService);
+		ReflectionTestUtils.setField(controller, "jwtUtils", jwtUtils);
+		return controller;
+	}
+
+	private MensajeController mensajeController() {
+		MensajeController controller = new MensajeController();
+		ReflectionTestUtils.setField(controller, "mensajeService", mensajeService);
+		ReflectionTestUtils.setField(controller, "actorRepository", actorRepository);
+		ReflectionTestUtils.setField(controller, "actorActual", actorActual);
+		return controller;
+	}
+
+	// Cuenta las consultas al repositorio de actores que devuelven al actor autenticado (por id o por username)
+	private void assertConsultasActorAutenticado(int maximo) {
+		long consultas = mockingDetails(actorRepository).getInvocations().stream()
+				.filter(i -> i.getMethod().getName().startsWith("find"))
+				.filter(i -> Arrays.asList(i.getArguments()).contains(cliente.getId())
+						|| Arrays.asList(i.getArguments()).contains(cliente.getUsername()))
+				.count();
+		assertTrue(consultas <= maximo, "Se esperaban como mucho " + maximo + " consultas del actor autenticado y hubo " + consultas);
+	}
+}
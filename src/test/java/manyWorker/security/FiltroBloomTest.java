@@ -0,0 +1,43 @@
+package manyWorker.security;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class FiltroBloomTest {
+
+	@Test
+	void nuncaDaFalsosNegativos() {
+		FiltroBloom filtro = new FiltroBloom(10000, 0.001);
+		List<String> jtis = new ArrayList<>();
+		for (int i = 0; i < 10000; i++) {
+			String jti = UUID.randomUUID().toString();
+			jtis.add(jti);
+			filtro.agregar(jti);
+		}
+
+		assertTrue(jtis.stream().allMatch(filtro::puedeContener));
+	}
+
+	@Test
+	void losFalsosPositivosQuedanCercaDeLoConfigurado() {
+		FiltroBloom filtro = new FiltroBloom(10000, 0.01);
+		for (int i = 0; i < 10000; i++) {
+			filtro.agregar(UUID.randomUUID().toString());
+		}
+
+		int falsosPositivos = 0;
+		int pruebas = 100000;
+		for (int i = 0; i < pruebas; i++) {
+			if (filtro.puedeContener(UUID.randomUUID().toString())) {
+				falsosPositivos++;
+			}
+		}
+
+		assertTrue(falsosPositivos < pruebas * 0.02, "Falsos positivos: " + falsosPositivos);
+	}
+}
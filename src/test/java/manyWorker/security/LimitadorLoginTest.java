@@ -0,0 +1,58 @@
+package manyWorker.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LimitadorLoginTest {
+
+	// 16 claves en total: una por franja
+	private final LimitadorLogin limitador = new LimitadorLogin(5, 5, 20, 30, 16);
+
+	@Test
+	void conLaFranjaLlenaUnaClaveNuevaNoPasa() {
+		assertEquals(0, limitador.intentar("ana", "10.0.0.1"));
+
+		// Otro usuario desde la misma IP cuya clave cae en la franja que ya ocupa "ana"
+		String otro = usuarioEnLaMismaFranja("ana");
+		long espera = limitador.intentar(otro, "10.0.0.1");
+
+		assertTrue(espera > 0, "Espera: " + espera);
+		assertEquals(1L, limitador.getMetricas().get("rechazadosMemoria"));
+		assertEquals(1L, limitador.getMetricas().get("rechazadosUsuario"));
+	}
+
+	@Test
+	void conLaFranjaLlenaUnaIpNuevaNoPasa() {
+		assertEquals(0, limitador.intentar("ana", "10.0.0.1"));
+
+		long espera = limitador.intentar("ana", ipEnLaMismaFranja("10.0.0.1"));
+
+		assertTrue(espera > 0, "Espera: " + espera);
+		assertEquals(1L, limitador.getMetricas().get("rechazadosIp"));
+	}
+
+	private static String usuarioEnLaMismaFranja(String usuario) {
+		for (int i = 0; ; i++) {
+			String candidato = "usuario" + i;
+			if (franja("u:" + candidato) == franja("u:" + usuario)) {
+				return candidato;
+			}
+		}
+	}
+
+	private static String ipEnLaMismaFranja(String ip) {
+		for (int i = 2; ; i++) {
+			String candidata = "10.0." + (i / 256) + "." + (i % 256);
+			if (franja("ip:" + candidata) == franja("ip:" + ip)) {
+				return candidata;
+			}
+		}
+	}
+
+	// El mismo reparto que LimitadorLogin
+	private static int franja(String clave) {
+		return (clave.hashCode() & 0x7fffffff) % 16;
+	}
+}
@@ -0,0 +1,61 @@
+package manyWorker.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import manyWorker.repository.ActorRepository;
+
+@ExtendWith(MockitoExtension.class)
+class RegistroBaneosTest {
+
+	@Mock
+	private ActorRepository actorRepository;
+
+	private RegistroBaneos registro;
+
+	@BeforeEach
+	void setUp() {
+		registro = new RegistroBaneos();
+		ReflectionTestUtils.setField(registro, "actorRepository", actorRepository);
+	}
+
+	@Test
+	void ocupaLoQueLosBaneadosAunqueLosIdsSeanAltos() {
+		when(actorRepository.findIdsBaneados()).thenReturn(List.of(2_000_000_000, 9, 3));
+		registro.cargar();
+
+		assertTrue(registro.estaBaneado(2_000_000_000));
+		assertTrue(registro.estaBaneado(3));
+		assertFalse(registro.estaBaneado(4));
+		assertEquals(12, registro.getMetricas().get("bytes"));
+	}
+
+	@Test
+	void banearYDesbanearMantienenElOrden() {
+		when(actorRepository.findIdsBaneados()).thenReturn(List.of(3, 9));
+		registro.cargar();
+
+		registro.banear(5);
+		registro.banear(5);
+		registro.banear(1);
+		registro.desbanear(9);
+		registro.desbanear(42);
+
+		for (int id : new int[] { 1, 3, 5 }) {
+			assertTrue(registro.estaBaneado(id), "Baneado: " + id);
+		}
+		assertFalse(registro.estaBaneado(9));
+		assertEquals(3, registro.getMetricas().get("baneados"));
+	}
+}
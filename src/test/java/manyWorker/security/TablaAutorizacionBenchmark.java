@@ -0,0 +1,106 @@
+package manyWorker.security;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthenticatedAuthorizationManager;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.access.intercept.RequestMatcherDelegatingAuthorizationManager;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.AnyRequestMatcher;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+// Compara la tabla de autorización con la cadena lineal de requestMatchers que sustituye.
+// Ejecutar con: mvn test-compile && java -cp "target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)" manyWorker.security.TablaAutorizacionBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TablaAutorizacionBenchmark {
+
+	@Param({ "GET /actor/login", "GET /tareas/42", "PUT /solicitudes/5/valorar", "GET /mensajes/destinatario/3",
+			"GET /swagger-ui/index.html", "GET /desconocida/1" })
+	private String peticion;
+
+	private TablaAutorizacion tabla;
+	private AuthorizationManager<HttpServletRequest> cadena;
+	private HttpServletRequest request;
+	private RequestAuthorizationContext contexto;
+	private Supplier<Authentication> authentication;
+
+	@Setup
+	public void setUp() {
+		tabla = new SecurityConfiguration().tablaAutorizacion();
+		cadena = cadenaLineal(tabla);
+		String[] partes = peticion.split(" ");
+		request = new MockHttpServletRequest(partes[0], partes[1]);
+		contexto = new RequestAuthorizationContext(request);
+		Authentication auth = UsernamePasswordAuthenticationToken.authenticated("juanperez", null,
+				List.of(new SimpleGrantedAuthority("CLIENTE")));
+		authentication = () -> auth;
+	}
+
+	@Benchmark
+	public AuthorizationDecision tablaIndexada() {
+		return tabla.check(authentication, contexto);
+	}
+
+	@Benchmark
+	@SuppressWarnings("deprecation")
+	public AuthorizationDecision cadenaRequestMatchers() {
+		return cadena.check(authentication, request);
+	}
+
+	// La misma lista de reglas montada como lo hace authorizeHttpRequests: se prueban una a una en orden
+	static AuthorizationManager<HttpServletRequest> cadenaLineal(TablaAutorizacion tabla) {
+		RequestMatcherDelegatingAuthorizationManager.Builder builder = RequestMatcherDelegatingAuthorizationManager.builder();
+		PathPatternRequestMatcher.Builder matchers = PathPatternRequestMatcher.withDefaults();
+		for (TablaAutorizacion.Regla regla : tabla.getReglas()) {
+			HttpMethod metodo = regla.getMetodo() == null ? null : HttpMethod.valueOf(regla.getMetodo());
+			builder.add(matchers.matcher(metodo, regla.getPatron()), acceso(regla));
+		}
+		builder.add(AnyRequestMatcher.INSTANCE, acceso(tabla.getPorDefecto()));
+		return builder.build();
+	}
+
+	private static AuthorizationManager<RequestAuthorizationContext> acceso(TablaAutorizacion.Regla regla) {
+		switch (regla.getTipo()) {
+		case PERMITIR:
+			return (a, c) -> new AuthorizationDecision(true);
+		case AUTENTICADO:
+			return AuthenticatedAuthorizationManager.authenticated();
+		default:
+			return AuthorityAuthorizationManager.hasAnyAuthority(regla.getAutoridades().toArray(new String[0]));
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(TablaAutorizacionBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,73 @@
+package manyWorker.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+// La tabla indexada tiene que decidir exactamente lo mismo que la cadena de requestMatchers
+class TablaAutorizacionTest {
+
+	private static final List<String> METODOS = List.of("GET", "POST", "PUT", "DELETE", "PATCH");
+
+	private static final List<String> RUTAS = List.of("/", "/actor/login", "/actor/refresh", "/actor/logout",
+			"/admin/metricas", "/trabajador", "/trabajador/3", "/cliente", "/cliente/7", "/cliente/miPerfil",
+			"/perfilSocial", "/perfilSocial/2", "/solicitudes", "/solicitudes/5", "/solicitudes/tarea/abc",
+			"/solicitudes/5/asignar", "/solicitudes/5/valorar", "/solicitudes/5/otra", "/mensajes",
+			"/mensajes/enviar", "/mensajes/broadcast", "/mensajes/broadcast/5", "/mensajes/destinatario/3",
+			"/tutoriales", "/tutoriales/1", "/categorias", "/categorias/4", "/tareas", "/tareas/x1", "/banear/3", "/desbanear/3",
+			"/v3/api-docs", "/v3/api-docs/swagger-config", "/swagger-ui.html", "/swagger-ui/index.html",
+			"/desconocida/1",
+			// Codificadas, con "//" o con ";parametros": la tabla tiene que verlas igual que la cadena
+			"/%61dmin/metricas", "/%61dmin/baneos", "/%62anear/3", "/admin%2Fmetricas", "//admin/metricas",
+			"/admin;x=1/metricas", "/banear;jsessionid=1/3", "/mensajes/%62roadcast", "/solicitudes/5/%61signar",
+			"/%61ctor/login", "/actor;x/login");
+
+	private final TablaAutorizacion tabla = new SecurityConfiguration().tablaAutorizacion();
+
+	@Test
+	@SuppressWarnings("deprecation")
+	void decideIgualQueLaCadenaDeRequestMatchers() {
+		AuthorizationManager<HttpServletRequest> cadena = TablaAutorizacionBenchmark.cadenaLineal(tabla);
+		List<Authentication> usuarios = List.of(
+				new AnonymousAuthenticationToken("anonimo", "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")),
+				usuario("CLIENTE"), usuario("TRABAJADOR"), usuario("ADMINISTRADOR"));
+
+		for (String metodo : METODOS) {
+			for (String ruta : RUTAS) {
+				MockHttpServletRequest request = new MockHttpServletRequest(metodo, ruta);
+				RequestAuthorizationContext contexto = new RequestAuthorizationContext(request);
+				for (Authentication usuario : usuarios) {
+					Supplier<Authentication> auth = () -> usuario;
+					assertEquals(cadena.check(auth, request).isGranted(), tabla.check(auth, contexto).isGranted(),
+							metodo + " " + ruta + " con " + usuario.getAuthorities());
+				}
+			}
+		}
+	}
+
+	@Test
+	void avisaDeLasReglasTapadas() {
+		List<String> avisos = tabla.getAvisos();
+
+		assertTrue(avisos.stream().anyMatch(a -> a.startsWith("Regla en conflicto") && a.contains("/cliente/miPerfil")));
+		assertTrue(avisos.stream().anyMatch(a -> a.contains("GET /perfilSocial/** ")));
+		assertTrue(avisos.stream().noneMatch(a -> a.contains("/solicitudes/*/asignar")));
+	}
+
+	private static Authentication usuario(String rol) {
+		return UsernamePasswordAuthenticationToken.authenticated("usuario", null, AuthorityUtils.createAuthorityList(rol));
+	}
+}
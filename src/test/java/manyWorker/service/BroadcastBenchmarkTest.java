@@ -0,0 +1,98 @@
+package manyWorker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import manyWorker.entity.Actor;
+import manyWorker.entity.MensajeVista;
+import manyWorker.repository.ActorRepository;
+
+// Broadcast a muchos actores: guardado una sola vez (actual) frente a una copia por destinatario
+// con INSERT ... SELECT (anterior), y lo que cuesta después leer la bandeja de un destinatario.
+// Necesita la BD configurada y se lanza a mano:
+//   mvn test -Dtest=BroadcastBenchmarkTest -Dbenchmark=true [-Dbenchmark.actores=100000]
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BroadcastBenchmarkTest {
+
+	// Ids fuera del rango de la secuencia para poder borrar después los actores de prueba
+	private static final int PRIMER_ID = 2_000_000_000;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private ActorRepository actorRepository;
+
+	@Autowired
+	private MensajeService mensajeService;
+
+	private final int numActores = Integer.getInteger("benchmark.actores", 100_000);
+	private Actor remitente;
+
+	@BeforeEach
+	void crearActores() {
+		limpiar();
+		jdbcTemplate.update("INSERT INTO cliente (id, version, nombre, apellido, username, password, authority, rol, baneado, version_seguridad) "
+				+ "SELECT ? + g, 0, 'Bench', 'Mark', 'bench' || g, 'x', 'CLIENTE', 1, false, 0 FROM generate_series(1, ?) g",
+				PRIMER_ID, numActores);
+		remitente = actorRepository.findByUsername("admin").orElseThrow();
+	}
+
+	@AfterEach
+	void limpiar() {
+		jdbcTemplate.update("DELETE FROM mensaje WHERE asunto LIKE 'Benchmark%'");
+		jdbcTemplate.update("DELETE FROM broadcast WHERE asunto LIKE 'Benchmark%'");
+		jdbcTemplate.update("DELETE FROM cliente WHERE id > ?", PRIMER_ID);
+	}
+
+	@Test
+	void broadcastUnicoFrenteACopiaPorDestinatario() {
+		long inicio = System.nanoTime();
+		mensajeService.enviarBroadcast(remitente, "Benchmark nuevo", "Cuerpo");
+		long msNuevo = (System.nanoTime() - inicio) / 1_000_000;
+
+		inicio = System.nanoTime();
+		int copias = transactionTemplate.execute(status -> broadcastAnterior("Benchmark anterior", "Cuerpo"));
+		long msAnterior = (System.nanoTime() - inicio) / 1_000_000;
+		assertEquals(actorRepository.count() - 1, copias);
+
+		// La bandeja de un destinatario tiene las dos versiones: la copia y el broadcast resuelto al leer
+		inicio = System.nanoTime();
+		Pagina<MensajeVista> bandeja = mensajeService.findRecibidos(PRIMER_ID + 1, null, null);
+		long msBandeja = (System.nanoTime() - inicio) / 1_000_000;
+		assertTrue(bandeja.elementos().stream().anyMatch(m -> m.broadcast() && m.asunto().equals("Benchmark nuevo")));
+
+		System.out.println(">> Broadcast a " + copias + " actores: una fila " + msNuevo + " ms, INSERT ... SELECT "
+				+ msAnterior + " ms; primera página de una bandeja " + msBandeja + " ms");
+	}
+
+	// Implementación anterior de MensajeService.enviarBroadcast, como referencia
+	private int broadcastAnterior(String asunto, String cuerpo) {
+		return entityManager.createQuery("INSERT INTO Mensaje (remitente, destinatario, fechaEnvio, asunto, cuerpo) "
+				+ "SELECT r, a, :fecha, :asunto, :cuerpo FROM Actor r, Actor a WHERE r.id = :remitente AND a.id <> :remitente")
+				.setParameter("fecha", new Date())
+				.setParameter("asunto", asunto)
+				.setParameter("cuerpo", cuerpo)
+				.setParameter("remitente", remitente.getId())
+				.executeUpdate();
+	}
+}
@@ -0,0 +1,95 @@
+package manyWorker.service;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+// Límites de CentralEventos sin servidor: fuera de una petición el SseEmitter guarda lo que se le envía
+// y, una vez completado, rechaza los envíos con IllegalStateException, que es como se ve aquí que la
+// conexión se ha cerrado. Para llenar un buffer se ocupa el único hilo de envío.
+@ExtendWith(MockitoExtension.class)
+class CentralEventosTest {
+
+	private static final int BUFFER = 4;
+	private static final int CONEXIONES_POR_ACTOR = 2;
+
+	@Mock
+	private BusEventos busEventos;
+
+	private final CountDownLatch liberarEnvios = new CountDownLatch(1);
+	private CentralEventos centralEventos;
+
+	private CentralEventos crear() {
+		centralEventos = new CentralEventos(1, BUFFER, CONEXIONES_POR_ACTOR, 60_000);
+		ReflectionTestUtils.setField(centralEventos, "busEventos", busEventos);
+		return centralEventos;
+	}
+
+	@AfterEach
+	void detener() {
+		liberarEnvios.countDown();
+		centralEventos.detener();
+	}
+
+	@Test
+	void bufferLlenoCierraLaConexion() {
+		CentralEventos central = crear();
+		ExecutorService envios = (ExecutorService) ReflectionTestUtils.getField(central, "envios");
+		envios.execute(() -> {
+			try {
+				liberarEnvios.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+
+		SseEmitter lenta = central.conectar(7, "jti-lenta", null);
+		SseEmitter otra = central.conectar(8, "jti-otra", null);
+		// El evento "conectado" ocupa ya un hueco de cada buffer
+		for (int i = 1; i < BUFFER; i++) {
+			central.publicar(7, "mensaje", i);
+		}
+		assertEquals(2, central.getMetricas().get("conexiones"));
+		assertEquals(0L, central.getMetricas().get("cerradasPorBufferLleno"));
+
+		central.publicar(7, "mensaje", BUFFER);
+		assertEquals(1L, central.getMetricas().get("cerradasPorBufferLleno"));
+		assertEquals(1, central.getMetricas().get("conexiones"));
+		assertEquals(1, central.getMetricas().get("actoresConectados"));
+		assertThrows(IllegalStateException.class, () -> lenta.send("x"));
+		assertDoesNotThrow(() -> otra.send("x"));
+
+		// Ya cerrada, lo que se publique para el actor no vuelve a contar
+		central.publicar(7, "mensaje", BUFFER + 1);
+		assertEquals(1L, central.getMetricas().get("cerradasPorBufferLleno"));
+	}
+
+	@Test
+	void conexionDeMasCierraLaMasAntigua() {
+		CentralEventos central = crear();
+		SseEmitter primera = central.conectar(7, "jti-1", null);
+		SseEmitter segunda = central.conectar(7, "jti-2", null);
+		SseEmitter deOtroActor = central.conectar(8, "jti-3", null);
+		assertEquals(3, central.getMetricas().get("conexiones"));
+
+		SseEmitter tercera = central.conectar(7, "jti-4", null);
+		assertEquals(3, central.getMetricas().get("conexiones"));
+		assertEquals(2, central.getMetricas().get("actoresConectados"));
+		assertThrows(IllegalStateException.class, () -> primera.send("x"));
+		assertDoesNotThrow(() -> segunda.send("x"));
+		assertDoesNotThrow(() -> tercera.send("x"));
+		assertDoesNotThrow(() -> deOtroActor.send("x"));
+		assertEquals(0L, central.getMetricas().get("cerradasPorBufferLleno"));
+	}
+}
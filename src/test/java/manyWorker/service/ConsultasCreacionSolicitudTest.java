@@ -0,0 +1,109 @@
+package manyWorker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import jakarta.persistence.EntityManagerFactory;
+import manyWorker.entity.Actor;
+import manyWorker.entity.Solicitud;
+import manyWorker.entity.Tarea;
+import manyWorker.entity.Trabajador;
+import manyWorker.repository.ActorRepository;
+
+// Sentencias que lanza SolicitudService.crear, contadas con las estadísticas de Hibernate: la tarea con su
+// categoría y su cliente en una consulta, el insert de la solicitud y el del evento de notificación.
+// Las estadísticas son de toda la aplicación, así que se paran las tareas programadas que tocan la BD
+// y el despacho de notificaciones (que además borraría los eventos a mitad de la prueba).
+@SpringBootTest(properties = {
+	"spring.jpa.show-sql=false",
+	"spring.jpa.properties.hibernate.generate_statistics=true",
+	"manyworker.solicitudes.notificaciones.activo=false",
+	"manyworker.jwt.revocados.sincronizacion-ms=3600000",
+	"manyworker.seguridad.claves-api.recarga-ms=3600000",
+	"manyworker.seguridad.baneos.recarga-ms=3600000"
+})
+class ConsultasCreacionSolicitudTest {
+
+	private static final String CATEGORIA = "PRUEBA-CONSULTAS-SOLICITUD";
+	private static final String TAREA = "PRUEBA-CONSULTAS-SOLICITUD";
+	private static final int SOLICITUDES = 10;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private ActorRepository actorRepository;
+
+	@Autowired
+	private SolicitudService solicitudService;
+
+	private int trabajadorId;
+
+	@BeforeEach
+	void crearTarea() {
+		limpiar();
+		Actor cliente = actorRepository.findByUsername("juanperez").orElseThrow();
+		trabajadorId = actorRepository.findByUsername("pepegotera").orElseThrow().getId();
+		jdbcTemplate.update("INSERT INTO categoria (id, titulo, es_reparacion) VALUES (?, 'Prueba', true)", CATEGORIA);
+		jdbcTemplate.update("INSERT INTO tarea (id, fecha_publicacion, descripcion, direccion, precio_max, fecha_fin, categoria_id, cliente_id) "
+				+ "VALUES (?, current_date, 'Prueba', 'Calle', 100, current_date + 30, ?, ?)", TAREA, CATEGORIA, cliente.getId());
+	}
+
+	@AfterEach
+	void limpiar() {
+		jdbcTemplate.update("DELETE FROM evento_solicitud WHERE solicitud_id IN (SELECT id FROM solicitud WHERE tarea_id = ?)", TAREA);
+		jdbcTemplate.update("DELETE FROM solicitud WHERE tarea_id = ?", TAREA);
+		jdbcTemplate.update("DELETE FROM tarea WHERE id = ?", TAREA);
+		jdbcTemplate.update("DELETE FROM categoria WHERE id = ?", CATEGORIA);
+	}
+
+	@Test
+	void crearUnaSolicitudSonUnaConsultaYDosInserts() {
+		Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		estadisticas.clear();
+
+		for (int i = 0; i < SOLICITUDES; i++) {
+			solicitudService.crear(solicitud(trabajadorId));
+		}
+
+		assertEquals(SOLICITUDES, estadisticas.getQueryExecutionCount());
+		assertEquals(2 * SOLICITUDES, estadisticas.getEntityInsertCount());
+		// Nada de cargas aparte: ni el trabajador (va por referencia) ni la categoría o el cliente de la tarea
+		assertEquals(0, estadisticas.getEntityFetchCount());
+		// Tres sentencias por solicitud, más como mucho una a la secuencia (reserva los ids de 50 en 50)
+		long sentencias = estadisticas.getPrepareStatementCount();
+		assertTrue(sentencias >= 3 * SOLICITUDES && sentencias <= 3 * SOLICITUDES + 1,
+				"Sentencias para " + SOLICITUDES + " solicitudes: " + sentencias);
+	}
+
+	@Test
+	void unTrabajadorQueNoExisteSeRechazaAlInsertar() {
+		assertThrows(IllegalArgumentException.class, () -> solicitudService.crear(solicitud(Integer.MAX_VALUE)));
+	}
+
+	private static Solicitud solicitud(int trabajadorId) {
+		Trabajador trabajador = new Trabajador();
+		trabajador.setId(trabajadorId);
+		Tarea tarea = new Tarea();
+		tarea.setId(TAREA);
+		Solicitud solicitud = new Solicitud();
+		solicitud.setTrabajador(trabajador);
+		solicitud.setTarea(tarea);
+		solicitud.setPrecioOfrecido(50.0);
+		solicitud.setComentario("Puedo ir mañana por la tarde");
+		return solicitud;
+	}
+}
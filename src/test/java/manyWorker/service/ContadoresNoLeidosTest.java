@@ -0,0 +1,165 @@
+package manyWorker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import manyWorker.entity.Actor;
+import manyWorker.repository.ActorRepository;
+
+// Contador de no leídos y resúmenes de conversación contra la BD: tras enviar, marcar uno, marcar en
+// bloque, marcar todos y borrar, los dos tienen que cuadrar con los mensajes que quedan sin leer.
+// Los actores se crean con ids fuera del rango de la secuencia para poder borrarlos al terminar.
+@SpringBootTest(properties = {
+	"spring.jpa.show-sql=false",
+	"manyworker.solicitudes.notificaciones.activo=false",
+	"manyworker.jwt.revocados.sincronizacion-ms=3600000",
+	"manyworker.seguridad.claves-api.recarga-ms=3600000",
+	"manyworker.seguridad.baneos.recarga-ms=3600000"
+})
+class ContadoresNoLeidosTest {
+
+	private static final int ID_A = 1_999_999_001;
+	private static final int ID_B = 1_999_999_002;
+	private static final int ID_C = 1_999_999_003;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ActorRepository actorRepository;
+
+	@Autowired
+	private MensajeService mensajeService;
+
+	private Actor a;
+	private Actor b;
+	private Actor c;
+
+	@BeforeEach
+	void crearActores() {
+		limpiar();
+		jdbcTemplate.update("INSERT INTO cliente (id, version, nombre, apellido, username, password, authority, rol, baneado, version_seguridad) "
+				+ "SELECT id, 0, 'Prueba', 'Contadores', 'contadores' || id, 'x', 'CLIENTE', 1, false, 0 FROM unnest(?::int[]) id",
+				(Object) new Integer[] { ID_A, ID_B, ID_C });
+		a = actorRepository.findById(ID_A).orElseThrow();
+		b = actorRepository.findById(ID_B).orElseThrow();
+		c = actorRepository.findById(ID_C).orElseThrow();
+	}
+
+	@AfterEach
+	void limpiar() {
+		SecurityContextHolder.clearContext();
+		Object ids = new Integer[] { ID_A, ID_B, ID_C };
+		jdbcTemplate.update("DELETE FROM mensaje WHERE remitente_id = ANY(?::int[]) OR destinatario_id = ANY(?::int[])", ids, ids);
+		jdbcTemplate.update("DELETE FROM resumen_conversacion WHERE actor_id = ANY(?::int[])", ids);
+		jdbcTemplate.update("DELETE FROM contador_no_leidos WHERE actor_id = ANY(?::int[])", ids);
+		jdbcTemplate.update("DELETE FROM cliente WHERE id = ANY(?::int[])", ids);
+	}
+
+	@Test
+	void enviarMarcarYBorrar() {
+		int m1 = mensajeService.enviarMensaje(a, b, "Uno", "Cuerpo").getId();
+		int m2 = mensajeService.enviarMensaje(a, b, "Dos", "Cuerpo").getId();
+		int m3 = mensajeService.enviarMensaje(a, b, "Tres", "Cuerpo").getId();
+		int m4 = mensajeService.enviarMensaje(c, b, "Cuatro", "Cuerpo").getId();
+		int m5 = mensajeService.enviarMensaje(b, a, "Cinco", "Cuerpo").getId();
+		comprobarNoLeidos(ID_B, 4);
+		comprobarNoLeidos(ID_A, 1);
+		comprobarResumen(ID_B, ID_A, 3, m5);
+		comprobarResumen(ID_A, ID_B, 1, m5);
+		comprobarResumen(ID_B, ID_C, 1, m4);
+		comprobarResumen(ID_C, ID_B, 0, m4);
+
+		// Uno: marcarlo otra vez no resta, y quien no es el destinatario no puede marcarlo
+		assertTrue(mensajeService.marcarLeido(b, m1));
+		assertTrue(mensajeService.marcarLeido(b, m1));
+		assertFalse(mensajeService.marcarLeido(a, m2));
+		comprobarNoLeidos(ID_B, 3);
+		comprobarResumen(ID_B, ID_A, 2, m5);
+
+		// En bloque: se ignoran el ya leído y el que no es suyo; cada conversación baja lo suyo
+		assertEquals(2, mensajeService.marcarLeidos(b, List.of(m1, m2, m4, m5)));
+		comprobarNoLeidos(ID_B, 1);
+		comprobarNoLeidos(ID_A, 1);
+		comprobarResumen(ID_B, ID_A, 1, m5);
+		comprobarResumen(ID_B, ID_C, 0, m4);
+
+		// Borrar uno sin leer descuenta en los dos; el último de la conversación no cambia
+		autenticar(b);
+		mensajeService.delete(m3);
+		comprobarNoLeidos(ID_B, 0);
+		comprobarResumen(ID_B, ID_A, 0, m5);
+		comprobarResumen(ID_A, ID_B, 1, m5);
+
+		// Todos
+		assertEquals(1, mensajeService.marcarTodosLeidos(a));
+		assertEquals(0, mensajeService.marcarTodosLeidos(a));
+		comprobarNoLeidos(ID_A, 0);
+		comprobarResumen(ID_A, ID_B, 0, m5);
+
+		// Borrar el último (leído) no toca los contadores y el resumen pasa al anterior que queda
+		autenticar(a);
+		mensajeService.delete(m5);
+		comprobarNoLeidos(ID_A, 0);
+		comprobarNoLeidos(ID_B, 0);
+		comprobarResumen(ID_A, ID_B, 0, m2);
+		comprobarResumen(ID_B, ID_A, 0, m2);
+	}
+
+	// Dos marcados a la vez del mismo mensaje: el bloqueo hace que solo uno lo cuente
+	@Test
+	void marcadoConcurrenteRestaUnaVez() throws Exception {
+		int id = mensajeService.enviarMensaje(a, b, "Concurrente", "Cuerpo").getId();
+		CountDownLatch salida = new CountDownLatch(1);
+		CompletableFuture<Integer> primero = CompletableFuture.supplyAsync(() -> marcarTrasSalida(salida, id));
+		CompletableFuture<Integer> segundo = CompletableFuture.supplyAsync(() -> marcarTrasSalida(salida, id));
+		salida.countDown();
+
+		assertEquals(1, primero.get() + segundo.get());
+		comprobarNoLeidos(ID_B, 0);
+		comprobarResumen(ID_B, ID_A, 0, id);
+	}
+
+	private int marcarTrasSalida(CountDownLatch salida, int id) {
+		try {
+			salida.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return mensajeService.marcarLeidos(b, List.of(id));
+	}
+
+	private void autenticar(Actor actor) {
+		SecurityContextHolder.getContext()
+				.setAuthentication(new UsernamePasswordAuthenticationToken(actor.getUsername(), null, List.of()));
+	}
+
+	private void comprobarNoLeidos(int actorId, int esperado) {
+		assertEquals(esperado, jdbcTemplate.queryForObject(
+				"SELECT no_leidos FROM contador_no_leidos WHERE actor_id = ?", Integer.class, actorId));
+	}
+
+	private void comprobarResumen(int actorId, int interlocutorId, int noLeidos, int ultimoMensajeId) {
+		Map<String, Object> resumen = jdbcTemplate.queryForMap(
+				"SELECT no_leidos, ultimo_mensaje_id FROM resumen_conversacion WHERE actor_id = ? AND interlocutor_id = ?",
+				actorId, interlocutorId);
+		assertEquals(noLeidos, ((Number) resumen.get("no_leidos")).intValue(), "no_leidos " + actorId + "-" + interlocutorId);
+		assertEquals(ultimoMensajeId, ((Number) resumen.get("ultimo_mensaje_id")).intValue(),
+				"ultimo_mensaje_id " + actorId + "-" + interlocutorId);
+	}
+}
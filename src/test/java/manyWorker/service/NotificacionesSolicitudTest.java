@@ -0,0 +1,154 @@
+package manyWorker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import manyWorker.entity.Cliente;
+import manyWorker.entity.EventoSolicitud;
+import manyWorker.entity.Solicitud;
+import manyWorker.entity.Tarea;
+import manyWorker.entity.Trabajador;
+import manyWorker.repository.EventoSolicitudRepository;
+import manyWorker.repository.SolicitudRepository;
+
+@ExtendWith(MockitoExtension.class)
+class NotificacionesSolicitudTest {
+
+	@Mock
+	private EventoSolicitudRepository eventoSolicitudRepository;
+
+	@Mock
+	private SolicitudRepository solicitudRepository;
+
+	@Mock
+	private MensajeService mensajeService;
+
+	private NotificacionesSolicitud notificaciones;
+
+	@BeforeEach
+	void setUp() {
+		notificaciones = new NotificacionesSolicitud();
+		ReflectionTestUtils.setField(notificaciones, "eventoSolicitudRepository", eventoSolicitudRepository);
+		ReflectionTestUtils.setField(notificaciones, "solicitudRepository", solicitudRepository);
+		ReflectionTestUtils.setField(notificaciones, "mensajeService", mensajeService);
+		ReflectionTestUtils.setField(notificaciones, "transactionTemplate",
+				new TransactionTemplate(mock(PlatformTransactionManager.class)));
+		ReflectionTestUtils.setField(notificaciones, "lote", 100);
+		ReflectionTestUtils.setField(notificaciones, "reservaMs", 60000L);
+		ReflectionTestUtils.setField(notificaciones, "reintentoMs", 10000L);
+		ReflectionTestUtils.setField(notificaciones, "maxIntentos", 3);
+	}
+
+	@Test
+	void unLoteSeDespachaConUnaConsultaYSeBorraEntero() {
+		Solicitud solicitud = solicitud(10, 2, 3);
+		when(eventoSolicitudRepository.findListosParaReservar(any(), eq(100)))
+				.thenReturn(List.of(evento(1, 10, 0), evento(2, 99, 0)));
+		when(solicitudRepository.findParaNotificar(anyCollection())).thenReturn(List.of(solicitud));
+
+		notificaciones.despachar();
+
+		verify(eventoSolicitudRepository).reservar(eq(List.of(1, 2)), any());
+		verify(solicitudRepository, times(1)).findParaNotificar(anyCollection());
+		// Un mensaje al cliente y otro al trabajador; la solicitud 99 ya no existe y se descarta
+		verify(mensajeService).enviarMensaje(same(solicitud.getTrabajador()), same(solicitud.getTarea().getCliente()),
+				eq("Actualización de solicitud"), anyString());
+		verify(mensajeService).enviarMensaje(same(solicitud.getTarea().getCliente()), same(solicitud.getTrabajador()),
+				eq("Nueva solicitud recibida"), anyString());
+		verify(eventoSolicitudRepository).deleteAllByIdInBatch(List.of(1, 2));
+		verify(eventoSolicitudRepository, never()).registrarFallo(anyInt(), anyInt(), any(), any(Boolean.class), any());
+		assertEquals(1L, notificaciones.getMetricas().get("despachados"));
+		assertEquals(1L, notificaciones.getMetricas().get("descartados"));
+	}
+
+	@Test
+	void siFallaElLoteSeRepiteEventoAEventoYSoloSeAplazaElQueFalla() {
+		Solicitud buena = solicitud(10, 2, 3);
+		Solicitud mala = solicitud(11, 4, 5);
+		when(eventoSolicitudRepository.findListosParaReservar(any(), eq(100)))
+				.thenReturn(List.of(evento(1, 10, 0), evento(2, 11, 0)));
+		when(solicitudRepository.findParaNotificar(anyCollection())).thenAnswer(inv -> {
+			List<Solicitud> encontradas = new ArrayList<>();
+			for (Object id : (Collection<?>) inv.getArgument(0)) {
+				encontradas.add((Integer) id == 10 ? buena : mala);
+			}
+			return encontradas;
+		});
+		lenient().when(mensajeService.enviarMensaje(same(mala.getTrabajador()), any(), anyString(), anyString()))
+				.thenThrow(new IllegalStateException("sin conexión"));
+
+		notificaciones.despachar();
+
+		verify(eventoSolicitudRepository).deleteAllByIdInBatch(List.of(1));
+		verify(eventoSolicitudRepository, never()).deleteAllByIdInBatch(List.of(2));
+		verify(eventoSolicitudRepository).registrarFallo(eq(2), eq(1), any(), eq(false), eq("IllegalStateException: sin conexión"));
+		assertEquals(1L, notificaciones.getMetricas().get("reintentos"));
+	}
+
+	@Test
+	void alAgotarLosIntentosElEventoQuedaComoFallido() {
+		Solicitud solicitud = solicitud(10, 2, 3);
+		when(eventoSolicitudRepository.findListosParaReservar(any(), eq(100))).thenReturn(List.of(evento(1, 10, 2)));
+		when(solicitudRepository.findParaNotificar(anyCollection())).thenReturn(List.of(solicitud));
+		when(mensajeService.enviarMensaje(any(Trabajador.class), any(), anyString(), anyString()))
+				.thenThrow(new IllegalStateException("sin conexión"));
+
+		notificaciones.despachar();
+
+		verify(eventoSolicitudRepository, never()).deleteAllByIdInBatch(any());
+		verify(eventoSolicitudRepository).registrarFallo(eq(1), eq(3), any(), eq(true), anyString());
+		assertEquals(1L, notificaciones.getMetricas().get("fallidos"));
+	}
+
+	private static EventoSolicitud evento(int id, int solicitudId, int intentos) {
+		EventoSolicitud evento = new EventoSolicitud(solicitudId, "SOLICITUD_CREADA");
+		evento.setId(id);
+		evento.setIntentos(intentos);
+		return evento;
+	}
+
+	private static Solicitud solicitud(int id, int clienteId, int trabajadorId) {
+		Cliente cliente = new Cliente();
+		cliente.setId(clienteId);
+		cliente.setNombre("Juan");
+		cliente.setApellido("Pérez");
+		Trabajador trabajador = new Trabajador();
+		trabajador.setId(trabajadorId);
+		trabajador.setNombre("Pepe");
+		trabajador.setApellido("Gotera");
+		Tarea tarea = new Tarea();
+		tarea.setDescripcion("Arreglar grifo");
+		tarea.setCliente(cliente);
+		Solicitud solicitud = new Solicitud();
+		solicitud.setId(id);
+		solicitud.setTarea(tarea);
+		solicitud.setTrabajador(trabajador);
+		solicitud.setPrecioOfrecido(50.0);
+		solicitud.setComentario("Puedo ir mañana");
+		return solicitud;
+	}
+}
@@ -0,0 +1,239 @@
+package manyWorker.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import manyWorker.entity.Cliente;
+import manyWorker.entity.Mensaje;
+import manyWorker.entity.MensajeVista;
+import manyWorker.entity.ResumenConversacion;
+import manyWorker.repository.ActorRepository;
+import manyWorker.repository.BroadcastRepository;
+import manyWorker.repository.ContadorNoLeidosRepository;
+import manyWorker.repository.MensajeArchivadoRepository;
+import manyWorker.repository.MensajeRepository;
+import manyWorker.repository.ResumenConversacionRepository;
+
+@ExtendWith(MockitoExtension.class)
+class PaginacionMensajesTest {
+
+	@Mock
+	private MensajeRepository mensajeRepository;
+
+	@Mock
+	private BroadcastRepository broadcastRepository;
+
+	@Mock
+	private ActorRepository actorRepository;
+
+	@Mock
+	private ContadorNoLeidosRepository contadorNoLeidosRepository;
+
+	@Mock
+	private ResumenConversacionRepository resumenConversacionRepository;
+
+	@Mock
+	private MensajeArchivadoRepository mensajeArchivadoRepository;
+
+	@Mock
+	private ArchivoMensajes archivoMensajes;
+
+	private MensajeService mensajeService;
+
+	@BeforeEach
+	void setUp() {
+		mensajeService = new MensajeService();
+		ReflectionTestUtils.setField(mensajeService, "mensajeRepository", mensajeRepository);
+		ReflectionTestUtils.setField(mensajeService, "broadcastRepository", broadcastRepository);
+		ReflectionTestUtils.setField(mensajeService, "actorRepository", actorRepository);
+		ReflectionTestUtils.setField(mensajeService, "contadorNoLeidosRepository", contadorNoLeidosRepository);
+		ReflectionTestUtils.setField(mensajeService, "resumenConversacionRepository", resumenConversacionRepository);
+		ReflectionTestUtils.setField(mensajeService, "mensajeArchivadoRepository", mensajeArchivadoRepository);
+		ReflectionTestUtils.setField(mensajeService, "archivoMensajes", archivoMensajes);
+		// Archivo con mensajes hasta la fecha 900
+		lenient().when(archivoMensajes.horizonte()).thenReturn(new Date(900));
+	}
+
+	@Test
+	void laPrimeraPaginaDevuelveElCursorDeLaUltimaFila() {
+		when(mensajeRepository.findRecibidos(7, Limit.of(4))).thenReturn(mensajes(4, 1000));
+
+		Pagina<MensajeVista> pagina = mensajeService.findRecibidos(7, null, 3);
+
+		assertEquals(3, pagina.elementos().size());
+		Pagina.Cursor cursor = Pagina.Cursor.decodificar(pagina.siguiente());
+		assertEquals(new Date(998), cursor.fecha());
+		assertEquals(3, cursor.id());
+	}
+
+	@Test
+	void laSiguientePaginaContinuaDesdeElCursor() {
+		String cursor = new Pagina.Cursor(new Date(998), 3).codificar();
+		when(mensajeRepository.findRecibidosDespuesDe(eq(7), eq(new Date(998)), eq(3), eq(Limit.of(4))))
+				.thenReturn(mensajes(2, 997));
+
+		Pagina<MensajeVista> pagina = mensajeService.findRecibidos(7, cursor, 3);
+
+		assertEquals(2, pagina.elementos().size());
+		assertNull(pagina.siguiente());
+		verify(mensajeRepository).findRecibidosDespuesDe(7, new Date(998), 3, Limit.of(4));
+	}
+
+	@Test
+	void losBroadcastsSeMezclanEnLaBandejaPorFecha() {
+		Cliente destinatario = new Cliente();
+		destinatario.setId(7);
+		destinatario.setFechaAlta(new Date(500));
+		when(actorRepository.findById(7)).thenReturn(Optional.of(destinatario));
+		// Directos con fechas 1000, 999 y 998; broadcasts con 1001 y 998 (id mayor que el directo de esa fecha)
+		when(mensajeRepository.findRecibidos(7, Limit.of(4))).thenReturn(mensajes(3, 1000));
+		when(broadcastRepository.findVisibles(7, new Date(500), Limit.of(4)))
+				.thenReturn(List.of(broadcast(50, 1001), broadcast(40, 998)));
+
+		Pagina<MensajeVista> pagina = mensajeService.findRecibidos(7, null, 3);
+
+		List<Integer> ids = pagina.elementos().stream().map(MensajeVista::id).toList();
+		assertEquals(List.of(50, 1, 2), ids);
+		assertTrue(pagina.elementos().get(0).broadcast());
+		assertNull(pagina.elementos().get(0).destinatario());
+		Pagina.Cursor cursor = Pagina.Cursor.decodificar(pagina.siguiente());
+		assertEquals(new Date(999), cursor.fecha());
+		assertEquals(2, cursor.id());
+	}
+
+	@Test
+	void alLlegarAlHorizonteLaBandejaSigueEnElArchivo() {
+		// La tabla de mensajes solo tiene 2 de los 4 pedidos: el resto de la página sale del archivo
+		when(mensajeRepository.findRecibidos(7, Limit.of(4))).thenReturn(mensajes(2, 1000));
+		when(contadorNoLeidosRepository.findArchivadoHasta(7)).thenReturn(new Date(900));
+		when(mensajeArchivadoRepository.findRecibidos(7, Limit.of(4))).thenReturn(List.of(
+				new MensajeVista(20, 3, "remitente", "Remi", null, 7, "destinatario", "Desti", null, new Date(900), new Date(950), "Viejo", "Cuerpo"),
+				new MensajeVista(19, 3, "remitente", "Remi", null, 7, "destinatario", "Desti", null, new Date(800), new Date(950), "Viejo", "Cuerpo")));
+
+		Pagina<MensajeVista> pagina = mensajeService.findRecibidos(7, null, 3);
+
+		assertEquals(List.of(1, 2, 20), pagina.elementos().stream().map(MensajeVista::id).toList());
+		assertEquals(20, Pagina.Cursor.decodificar(pagina.siguiente()).id());
+	}
+
+	@Test
+	void unaPaginaPosteriorAlHorizonteNoConsultaElArchivo() {
+		when(mensajeRepository.findEnviados(7, Limit.of(4))).thenReturn(mensajes(4, 1000));
+
+		mensajeService.findEnviados(7, null, 3);
+
+		verify(mensajeArchivadoRepository, never()).findEnviados(anyInt(), any());
+	}
+
+	@Test
+	void sinNadaArchivadoDelActorNoSeConsultaElArchivo() {
+		// Primera página corta (bandeja casi vacía), pero el actor no tiene nada archivado
+		when(mensajeRepository.findRecibidos(7, Limit.of(4))).thenReturn(mensajes(2, 1000));
+
+		assertEquals(2, mensajeService.findRecibidos(7, null, 3).elementos().size());
+
+		verify(mensajeArchivadoRepository, never()).findRecibidos(anyInt(), any());
+	}
+
+	@Test
+	void unaPaginaPosteriorALoArchivadoDelActorNoConsultaElArchivo() {
+		// Termina en 850, antes del horizonte (900), pero lo último archivado del actor es de 800
+		when(mensajeRepository.findEnviados(7, Limit.of(4))).thenReturn(mensajes(4, 853));
+		when(contadorNoLeidosRepository.findArchivadoHasta(7)).thenReturn(new Date(800));
+
+		mensajeService.findEnviados(7, null, 3);
+
+		verify(mensajeArchivadoRepository, never()).findEnviados(anyInt(), any());
+	}
+
+	@Test
+	void laConversacionTieneLaMismaClaveEnLosDosSentidos() {
+		long clave = Mensaje.claveConversacion(3, 7);
+		assertEquals(clave, Mensaje.claveConversacion(7, 3));
+		when(mensajeRepository.findConversacion(eq(clave), anyInt(), anyInt(), eq(Limit.of(4)))).thenReturn(mensajes(2, 1000));
+
+		assertEquals(2, mensajeService.findConversacion(7, 3, null, 3).elementos().size());
+		assertEquals(2, mensajeService.findConversacion(3, 7, null, 3).elementos().size());
+		assertTrue(Mensaje.claveConversacion(3, 7) != Mensaje.claveConversacion(3, 8));
+	}
+
+	@Test
+	void lasConversacionesSalenDelResumenConSuUltimoMensaje() {
+		// Conversaciones de 7 con 3 (último recibido) y con 9 (último enviado)
+		when(resumenConversacionRepository.findByActor(7, Limit.of(2)))
+				.thenReturn(List.of(resumen(3, 11, 1000, 2), resumen(9, 12, 900, 0)));
+		when(mensajeRepository.findVistasByIdInDeDestinatarios(List.of(11), Set.of(7, 3))).thenReturn(List.of(
+				new MensajeVista(11, 3, "tres", "Tres", null, 7, "siete", "Siete", null, new Date(1000), null, "A", "C")));
+
+		Pagina<Map<String, Object>> pagina = mensajeService.findConversaciones(7, null, 1);
+
+		assertEquals(1, pagina.elementos().size());
+		Map<String, Object> conversacion = pagina.elementos().get(0);
+		assertEquals(3, ((MensajeVista.Parte) conversacion.get("interlocutor")).id());
+		assertEquals(2, conversacion.get("noLeidos"));
+		Pagina.Cursor cursor = Pagina.Cursor.decodificar(pagina.siguiente());
+		assertEquals(new Date(1000), cursor.fecha());
+		assertEquals(3, cursor.id());
+	}
+
+	@Test
+	void elCursorDeRelevanciaConservaElRangoExacto() {
+		float rango = 0.24317084f;
+		Pagina.CursorRango cursor = Pagina.CursorRango.decodificar(new Pagina.CursorRango(rango, 42).codificar());
+		assertEquals(rango, cursor.rango());
+		assertEquals(42, cursor.id());
+	}
+
+	@Test
+	void unCursorMalFormadoSeRechaza() {
+		assertThrows(IllegalArgumentException.class, () -> mensajeService.findEnviados(7, "no-es-un-cursor", 10));
+	}
+
+	// Mensajes ordenados como los devuelve la consulta: fecha descendente
+	private static List<MensajeVista> mensajes(int cantidad, long fechaInicial) {
+		List<MensajeVista> mensajes = new ArrayList<>();
+		for (int i = 0; i < cantidad; i++) {
+			mensajes.add(new MensajeVista(i + 1, 3, "remitente", "Remi", null, 7, "destinatario", "Desti", null,
+					new Date(fechaInicial - i), null, "Asunto", "Cuerpo"));
+		}
+		return mensajes;
+	}
+
+	private static ResumenConversacion resumen(int interlocutorId, int ultimoMensajeId, long fecha, int noLeidos) {
+		ResumenConversacion resumen = new ResumenConversacion();
+		resumen.setActorId(7);
+		resumen.setInterlocutorId(interlocutorId);
+		resumen.setUltimoMensajeId(ultimoMensajeId);
+		resumen.setFechaUltimo(new Date(fecha));
+		resumen.setNoLeidos(noLeidos);
+		return resumen;
+	}
+
+	private static MensajeVista broadcast(int id, long fecha) {
+		return new MensajeVista(id, 1, "admin", "Admin", null, new Date(fecha), "Aviso", "Cuerpo");
+	}
+}